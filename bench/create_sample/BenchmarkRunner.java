@@ -0,0 +1,37 @@
+package create_sample;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Runs the benchmarks with the allocation profiler on, and saves their results as JSON, so a change can be compared
+ * with a baseline run. Any JMH command line options given, like a benchmark name pattern, are passed on.
+ *
+ * @author José Parada
+ * @version 1.0
+ * @see Fixtures
+ */
+public class BenchmarkRunner {
+    private static final String RESULTS_FILE = "bench-results.json";
+
+    /**
+     * Runs the benchmarks.
+     *
+     * @param args JMH command line options.
+     * @throws CommandLineOptionException If the options aren't valid.
+     * @throws RunnerException If a benchmark failed.
+     */
+    public static void main(String[] args) throws CommandLineOptionException, RunnerException {
+        new Runner(new OptionsBuilder()
+                .parent(new CommandLineOptions(args))
+                .addProfiler(GCProfiler.class)
+                .resultFormat(ResultFormatType.JSON)
+                .result(RESULTS_FILE)
+                .build()).run();
+    }
+}
@@ -0,0 +1,78 @@
+package create_sample;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Classifying a tweet's sentiment and topic, as the pipeline's classification stage does for every monitorable
+ * tweet. Each call classifies the next text from the corpus, so the classifiers don't see the same text twice in a
+ * row.
+ *
+ * @author José Parada
+ * @version 1.0
+ * @see SentimentClassifier
+ * @see TopicClassifier
+ */
+@State(Scope.Thread)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class ClassifierBenchmark {
+    private SentimentClassifier sentimentClassifier;
+    private TopicClassifier topicClassifier;
+    private String[] texts;
+    private int next;
+
+    /**
+     * Loads the sentiment classifier, and trains the topic classifier from the corpus, once per fork.
+     *
+     * @throws IOException
+     * @throws ClassNotFoundException
+     */
+    @Setup(Level.Trial)
+    public void setUp() throws IOException, ClassNotFoundException {
+        sentimentClassifier = new SentimentClassifier(Fixtures.SAVED_SENTIMENT_CLASSIFIER);
+        topicClassifier = TrainingBenchmark.train();
+        texts = Fixtures.texts(Fixtures.TEXTS);
+        next = 0;
+    }
+
+    /**
+     * Classifies a tweet's sentiment.
+     *
+     * @return The sentiment.
+     */
+    @Benchmark
+    public String sentiment() {
+        return sentimentClassifier.classify(nextText());
+    }
+
+    /**
+     * Classifies a tweet's topic.
+     *
+     * @return The topic.
+     */
+    @Benchmark
+    public String topic() {
+        return topicClassifier.classify(nextText());
+    }
+
+    /**
+     * Returns the next text, going back to the first after the last.
+     *
+     * @return A tweet's text.
+     */
+    private String nextText() {
+        String text = texts[next];
+        next = (next + 1) % texts.length;
+        return text;
+    }
+}
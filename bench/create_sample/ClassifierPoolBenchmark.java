@@ -0,0 +1,74 @@
+package create_sample;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+/**
+ * Classifying batches of tweets on a {@link ClassifierPool}, as the pipeline's classification stage does, with
+ * different amounts of threads to see how it scales with cores. Measured per tweet.
+ *
+ * @author José Parada
+ * @version 1.0
+ * @see ClassifierPool
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class ClassifierPoolBenchmark {
+    private static final int BATCH_SIZE = 256;
+    @Param({"1", "2", "4", "8"})
+    public int threads;
+    private ClassifierPool classifiers;
+    private List<String> batch;
+    private String[] sentiments, topics;
+
+    /**
+     * Loads the classifiers and starts the pool, once per fork.
+     *
+     * @throws IOException
+     * @throws ClassNotFoundException
+     */
+    @Setup(Level.Trial)
+    public void setUp() throws IOException, ClassNotFoundException {
+        classifiers = new ClassifierPool(new SentimentClassifier(Fixtures.SAVED_SENTIMENT_CLASSIFIER), 
+                TrainingBenchmark.train(), threads, null);
+        batch = Arrays.asList(Fixtures.texts(BATCH_SIZE));
+        sentiments = new String[BATCH_SIZE];
+        topics = new String[BATCH_SIZE];
+    }
+
+    /**
+     * Stops the pool.
+     */
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        classifiers.shutdown();
+    }
+
+    /**
+     * Classifies the sentiment and topic of a batch of tweets.
+     *
+     * @return The topics.
+     * @throws InterruptedException
+     */
+    @Benchmark
+    @OperationsPerInvocation(BATCH_SIZE)
+    public String[] classifyAll() throws InterruptedException {
+        classifiers.classifyAll(batch, sentiments, topics);
+        return topics;
+    }
+}
@@ -0,0 +1,72 @@
+package create_sample;
+
+import java.io.IOException;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * The per-tweet feature checks: looking for emoticons in a tweet's text when it starts being monitored, and the
+ * retweet history statistics computed for each tweet in the sample for the classifiers.
+ *
+ * @author José Parada
+ * @version 1.0
+ * @see SampleCreator
+ */
+@State(Scope.Thread)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class FeatureBenchmark {
+    private static final int TWEETS = 256;
+    private String[] texts;
+    private List<MonitoredStatus> monitor;
+    private int nextText, nextTweet;
+
+    /**
+     * Reads the texts and makes up the monitored tweets, once per fork.
+     *
+     * @throws IOException
+     */
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        texts = Fixtures.texts(Fixtures.TEXTS);
+        monitor = Fixtures.monitor(TWEETS, texts);
+        nextText = 0;
+        nextTweet = 0;
+    }
+
+    /**
+     * Checks a tweet's text for positive and negative emoticons, like every tweet that starts being monitored.
+     *
+     * @return Whether it has positive emoticons, and whether it has negative ones, as bits.
+     */
+    @Benchmark
+    public int containsEmoticons() {
+        String text = texts[nextText];
+        nextText = (nextText + 1) % texts.length;
+        return (SampleCreator.containsArray(text, SampleCreator.POSITIVE_EMOTICONS) ? 1 : 0)
+                | (SampleCreator.containsArray(text, SampleCreator.NEGATIVE_EMOTICONS) ? 2 : 0);
+    }
+
+    /**
+     * Computes the retweet history statistics of a tweet with a day of observations.
+     *
+     * @return The statistics.
+     */
+    @Benchmark
+    public LinkedList<double[]> followerStats() {
+        MonitoredStatus tweet = monitor.get(nextTweet);
+        nextTweet = (nextTweet + 1) % monitor.size();
+        return SampleCreator.followerStats(tweet.getRetweeters(), tweet.getRetweetCount(), 
+                tweet.getRetweetLikelihood(), tweet.getFollowerNumber());
+    }
+}
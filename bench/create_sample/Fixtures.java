@@ -0,0 +1,132 @@
+package create_sample;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * The fixed inputs the benchmarks run on. Tweet texts come from the bundled topics/ corpus, taken in the same order
+ * every time, and monitored tweets are made up from a fixed seed, so every run measures the same work. The
+ * benchmarks run from the project's root directory, where the corpus and SentimentClassifier.txt are.
+ *
+ * @author José Parada
+ * @version 1.0
+ * @see BenchmarkRunner
+ */
+final class Fixtures {
+    static final int TEXTS = 1024; // Tweet texts taken from the corpus
+    static final int OBSERVATIONS = 96; // A day of 15 minute periods
+    static final File TOPICS_DIR = new File("topics");
+    static final File SAVED_SENTIMENT_CLASSIFIER = new File("SentimentClassifier.txt");
+    private static final long SEED = 20141021;
+    private static final int MAX_RETWEETERS = 500;
+    private static final int MAX_FOLLOWERS = 100000;
+
+    /**
+     * Not instantiable.
+     */
+    private Fixtures() {
+    }
+
+    /**
+     * Returns tweet texts from the topics/ corpus, one line of each topic's files in turn, so every topic is
+     * represented.
+     *
+     * @param count The amount of texts.
+     * @return The texts, always the same ones in the same order.
+     * @throws IOException If the corpus can't be read or doesn't have enough texts.
+     */
+    static String[] texts(int count) throws IOException {
+        String[] categories = TOPICS_DIR.list();
+        List<List<String>> byTopic = new ArrayList<List<String>>();
+        String[] texts = new String[count];
+        int found = 0, round = 0;
+        boolean more = true;
+        if (categories == null)
+            throw new IOException("Method: texts. No topics corpus in " + TOPICS_DIR.getAbsolutePath() + ".");
+        Arrays.sort(categories);
+        for (String category : categories)
+            byTopic.add(readLines(new File(TOPICS_DIR, category), count));
+        while (found < count && more) {
+            more = false;
+            for (List<String> lines : byTopic) {
+                if (round < lines.size() && found < count) {
+                    texts[found++] = lines.get(round);
+                    more = true;
+                }
+            }
+            round++;
+        }
+        if (found < count)
+            throw new IOException("Method: texts. The topics corpus only has " + found + " texts.");
+        return texts;
+    }
+
+    /**
+     * Returns monitored tweets with a day of observations each and retweeters registered in the shared
+     * {@link UserRegistry}, like the ones in a snapshot at the end of a run.
+     *
+     * @param count The amount of tweets.
+     * @param texts Texts to give the tweets, reused in turn.
+     * @return The tweets, always the same ones.
+     */
+    static List<MonitoredStatus> monitor(int count, String[] texts) {
+        Random random = new Random(SEED);
+        List<MonitoredStatus> monitor = new ArrayList<MonitoredStatus>(count);
+        MonitoredStatus tweet;
+        int retweets, retweeters;
+        for (int i = 0; i < count; i++) {
+            tweet = new MonitoredStatus(i, texts[i % texts.length], new Date(0), random.nextBoolean(), 
+                    random.nextBoolean(), random.nextBoolean(), random.nextBoolean(), random.nextBoolean(), 
+                    random.nextBoolean(), random.nextBoolean(), random.nextBoolean(), random.nextInt(MAX_FOLLOWERS), 
+                    SentimentClassifier.getCategory(random.nextInt(3)), TopicClassifier.getCategory(random.nextInt(18)));
+            retweeters = random.nextInt(MAX_RETWEETERS);
+            for (int j = 0; j < retweeters; j++)
+                tweet.getRetweeters().add(UserRegistry.getShared().intern(random.nextInt(MAX_FOLLOWERS * 10), 
+                        random.nextInt(MAX_FOLLOWERS), 0));
+            retweets = 0;
+            for (int j = 0; j < OBSERVATIONS; j++) {
+                retweets += random.nextInt(10);
+                tweet.addObservation(retweets, random.nextDouble() / 100, 1);
+            }
+            monitor.add(tweet);
+        }
+        return monitor;
+    }
+
+    /**
+     * Reads the non-empty lines of the files in a directory, in name order, until there are enough.
+     *
+     * @param dir The directory.
+     * @param count The amount of lines wanted.
+     * @return Up to <code>count</code> lines.
+     * @throws IOException
+     */
+    private static List<String> readLines(File dir, int count) throws IOException {
+        List<String> lines = new ArrayList<String>();
+        String[] files = dir.list();
+        BufferedReader reader;
+        String line;
+        if (files == null)
+            return lines;
+        Arrays.sort(files);
+        for (int i = 0; i < files.length && lines.size() < count; i++) {
+            reader = new BufferedReader(new InputStreamReader(new FileInputStream(new File(dir, files[i])), "UTF-8"));
+            try {
+                while (lines.size() < count && (line = reader.readLine()) != null)
+                    if (!line.trim().isEmpty())
+                        lines.add(line);
+            } finally {
+                reader.close();
+            }
+        }
+        return lines;
+    }
+}
@@ -0,0 +1,100 @@
+package create_sample;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Keeping track of monitored tweets: adding observations to a tweet over its life, and writing and reading a
+ * monitor snapshot in the format of {@link MonitorWriter}, in memory so the disk isn't measured.
+ *
+ * @author José Parada
+ * @version 1.0
+ * @see MonitoredStatus
+ * @see MonitorWriter
+ * @see MonitorReader
+ */
+@State(Scope.Thread)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class MonitorBenchmark {
+    @Param({"1000"})
+    public int tweets;
+    private List<MonitoredStatus> monitor;
+    private byte[] snapshot;
+    private ByteArrayOutputStream out;
+
+    /**
+     * Makes up the monitor and its snapshot, once per fork.
+     *
+     * @throws IOException
+     */
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        monitor = Fixtures.monitor(tweets, Fixtures.texts(Fixtures.TEXTS));
+        out = new ByteArrayOutputStream();
+        snapshot = writeSnapshot();
+    }
+
+    /**
+     * Adds a day of observations to a new monitored tweet. Measured per observation.
+     *
+     * @return The tweet.
+     */
+    @Benchmark
+    @OperationsPerInvocation(Fixtures.OBSERVATIONS)
+    public MonitoredStatus addObservation() {
+        MonitoredStatus tweet = new MonitoredStatus(0, "", new Date(0), false, false, false, false, false, false, 
+                false, false, 0, null, null);
+        for (int i = 0; i < Fixtures.OBSERVATIONS; i++)
+            tweet.addObservation(i, 0.01, i % 4 == 0 ? 1 : 2);
+        return tweet;
+    }
+
+    /**
+     * Writes the whole monitor as a snapshot.
+     *
+     * @return The snapshot.
+     * @throws IOException
+     */
+    @Benchmark
+    public byte[] writeSnapshot() throws IOException {
+        MonitorWriter writer;
+        out.reset();
+        writer = new MonitorWriter(out);
+        for (MonitoredStatus tweet : monitor)
+            writer.write(tweet);
+        writer.close();
+        return out.toByteArray();
+    }
+
+    /**
+     * Reads the whole monitor back from its snapshot.
+     *
+     * @return The amount of tweets read.
+     * @throws IOException
+     */
+    @Benchmark
+    public int readSnapshot() throws IOException {
+        MonitorReader reader = new MonitorReader(new ByteArrayInputStream(snapshot));
+        int read = 0;
+        while (reader.read() != null)
+            read++;
+        reader.close();
+        return read;
+    }
+}
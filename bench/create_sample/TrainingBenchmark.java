@@ -0,0 +1,66 @@
+package create_sample;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Training the topic classifier from the whole topics/ corpus. Each training takes seconds, so it's timed one at a
+ * time instead of in a loop.
+ *
+ * The trained classifier is saved to a temporary file, which is deleted right after, so the benchmarks never
+ * replace the TopicClassifier.txt the sampler uses.
+ *
+ * @author José Parada
+ * @version 1.0
+ * @see TopicClassifier#trainClassifier(File)
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(1)
+public class TrainingBenchmark {
+
+    /**
+     * Trains the topic classifier.
+     *
+     * @return The trained classifier.
+     * @throws IOException
+     * @throws ClassNotFoundException
+     */
+    @Benchmark
+    public TopicClassifier trainClassifier() throws IOException, ClassNotFoundException {
+        return train();
+    }
+
+    /**
+     * Trains a topic classifier from the corpus in the working directory. The classifier is saved to a temporary
+     * file, and is only kept in memory.
+     *
+     * @return The trained classifier.
+     * @throws IOException If the corpus isn't in the root directory.
+     * @throws ClassNotFoundException
+     */
+    static TopicClassifier train() throws IOException, ClassNotFoundException {
+        TopicClassifier classifier = new TopicClassifier();
+        File saved;
+        if (!Fixtures.TOPICS_DIR.isDirectory())
+            throw new IOException("Method: train. Run the benchmarks from the directory with the topics corpus.");
+        saved = File.createTempFile("TopicClassifier", ".txt");
+        try {
+            classifier.trainClassifier(saved);
+        } finally {
+            saved.delete();
+        }
+        return classifier;
+    }
+}
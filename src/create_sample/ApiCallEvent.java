@@ -0,0 +1,36 @@
+package create_sample;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Timespan;
+
+/**
+ * Flight Recorder event for a Twitter API call run by the {@link ApiExecutor}. It lasts from when the call starts
+ * waiting for its rate limit until its response, so the wait is part of it and also recorded on its own.
+ *
+ * @author José Parada
+ * @version 1.0
+ * @see ApiExecutor
+ */
+@Name("create_sample.ApiCall")
+@Label("Twitter API Call")
+@Category({"Retweet Classifier", "Twitter API"})
+@Description("A Twitter API call, including the wait for its rate limit.")
+class ApiCallEvent extends jdk.jfr.Event {
+    @Label("Endpoint")
+    String endpoint;
+
+    @Label("Credential")
+    String credential;
+
+    @Label("Status")
+    @Description("HTTP status of the response, -1 if the call never got one.")
+    int status;
+
+    @Label("Wait Time")
+    @Description("Time the call waited for its rate limit before it ran.")
+    @Timespan(Timespan.NANOSECONDS)
+    long waitTime;
+}
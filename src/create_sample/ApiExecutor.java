@@ -0,0 +1,289 @@
+package create_sample;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import twitter4j.TwitterException;
+import twitter4j.TwitterResponse;
+
+/**
+ * Runs Twitter API calls concurrently. Every credential and endpoint pair has
+ * its own lane, a small pool of threads, so calls that count against different
+ * quotas never wait for each other, and a slow endpoint can't hold up the rest.
+ *
+ * Calls submitted together are waited for together with
+ * {@link #awaitAll(List, long)}. If one of them fails, or they don't finish in
+ * time, the ones still running are cancelled. Calls that are allowed to fail
+ * without holding up the rest are submitted with a fallback result instead.
+ *
+ * Every call takes one from its lane's bucket in the {@link RateLimiter}
+ * when it's submitted, so calls submitted together see each other's turns. If
+ * there are none left, it waits in its lane for the window to reset. A call
+ * cancelled before it runs gives its turn back, so calls that
+ * {@link #awaitAll(List, long)} gave up on don't use the quota. Every call
+ * syncs the bucket with the rate limit status of its response. Each call is
+ * recorded as an {@link ApiCallEvent} when Flight Recorder is on.
+ *
+ * @author José Parada
+ * @version 1.0
+ * @see Endpoint
+ */
+public class ApiExecutor {
+    private static final long NANOSECONDS_IN_A_MILLISECOND = 1000000;
+    private static final int OK = 200; // HTTP status of a call that returned
+    private final int laneThreads;
+    private final RateLimiter limiter;
+    private final HashMap<String, Lane> lanes;
+
+    /**
+     * The threads that run the calls of a credential and endpoint, and the metrics they record, which are looked up
+     * once instead of on every call.
+     */
+    private static class Lane {
+        private final ExecutorService threads;
+        private final Endpoint endpoint;
+        private final Metrics.Histogram waitTime, callTime;
+        private final ConcurrentHashMap<Integer, Metrics.Counter> errors; // By HTTP status
+
+        /**
+         * Constructor.
+         *
+         * @param threads The lane's thread pool.
+         * @param endpoint The API method the lane calls.
+         */
+        private Lane(ExecutorService threads, Endpoint endpoint) {
+            Metrics metrics = Metrics.getShared();
+            this.threads = threads;
+            this.endpoint = endpoint;
+            waitTime = metrics.histogram("sample_api_wait_seconds", "Time API calls waited for their rate limit.",
+                    "endpoint", endpoint.name());
+            callTime = metrics.histogram("sample_api_call_seconds", "Time API calls took, successful or not.",
+                    "endpoint", endpoint.name());
+            errors = new ConcurrentHashMap<Integer, Metrics.Counter>();
+        }
+
+        /**
+         * Returns the counter of the lane's failed calls with an HTTP status.
+         *
+         * @param status The HTTP status of the failed call.
+         * @return The counter.
+         */
+        private Metrics.Counter errors(int status) {
+            Metrics.Counter counter = errors.get(status);
+            if (counter == null) {
+                counter = Metrics.getShared().counter("sample_api_errors_total", "API calls that failed, by HTTP status.",
+                        "endpoint", endpoint.name(), "status", String.valueOf(status));
+                errors.put(status, counter);
+            }
+            return counter;
+        }
+    }
+
+    /**
+     * Constructor. Lanes are created the first time a call is submitted to them.
+     *
+     * @param laneThreads The amount of calls each lane can run at the same time.
+     * @param limiter The rate limiter the calls take their turns from.
+     */
+    public ApiExecutor(int laneThreads, RateLimiter limiter) {
+        this.laneThreads = laneThreads;
+        this.limiter = limiter;
+        lanes = new HashMap<String, Lane>();
+    }
+
+    /**
+     * Submits a call to the lane of a credential and endpoint. If the rate
+     * limit doesn't allow it yet, the call waits in its lane until it does.
+     *
+     * @param credential The name of the credential the call is made with.
+     * @param endpoint The API method being called.
+     * @param call The call.
+     * @return The pending result of the call.
+     */
+    public <T> Future<T> submit(String credential, Endpoint endpoint, Callable<T> call) {
+        return submit(credential, endpoint, call, false, null);
+    }
+
+    /**
+     * Submits a call to the lane of a credential and endpoint, which results
+     * in a fallback if Twitter returns an error. The error is still recorded,
+     * but the calls waited for along with this one aren't cancelled.
+     *
+     * @param credential The name of the credential the call is made with.
+     * @param endpoint The API method being called.
+     * @param call The call.
+     * @param fallback The result of the call if it fails.
+     * @return The pending result of the call.
+     */
+    public <T> Future<T> submit(String credential, Endpoint endpoint, Callable<T> call, T fallback) {
+        return submit(credential, endpoint, call, true, fallback);
+    }
+
+    /**
+     * Submits a call to the lane of a credential and endpoint.
+     *
+     * @param credential The name of the credential the call is made with.
+     * @param endpoint The API method being called.
+     * @param call The call.
+     * @param recover Whether a Twitter error results in the fallback instead
+     * of failing the call.
+     * @param fallback The result of the call if it fails and recovers.
+     * @return The pending result of the call.
+     */
+    private <T> Future<T> submit(final String credential, final Endpoint endpoint, final Callable<T> call,
+            final boolean recover, final T fallback) {
+        final Lane lane = lane(credential, endpoint);
+        final boolean reserved = limiter.tryAcquire(credential, endpoint);
+        final AtomicBoolean settled = new AtomicBoolean(false); // Set by the call running or being cancelled, first
+        FutureTask<T> task = new FutureTask<T>(new Callable<T>() {
+            public T call() throws Exception {
+                ApiCallEvent event = new ApiCallEvent();
+                T result;
+                long started = System.nanoTime();
+                event.begin();
+                if (!settled.compareAndSet(false, true) || !reserved) // No turn, or it was given back
+                    limiter.acquire(credential, endpoint);
+                event.waitTime = System.nanoTime() - started;
+                lane.waitTime.observe(event.waitTime);
+                started = System.nanoTime();
+                event.status = OK;
+                try {
+                    result = call.call();
+                } catch (TwitterException e) {
+                    limiter.update(credential, endpoint, e);
+                    lane.errors(e.getStatusCode()).increment();
+                    event.status = e.getStatusCode();
+                    if (recover)
+                        return fallback;
+                    throw e;
+                } catch (Exception e) {
+                    event.status = -1;
+                    throw e;
+                } finally {
+                    lane.callTime.observeSince(started);
+                    if (event.shouldCommit()) {
+                        event.endpoint = endpoint.name();
+                        event.credential = credential;
+                        event.commit();
+                    }
+                }
+                if (result instanceof TwitterResponse)
+                    limiter.update(credential, endpoint, (TwitterResponse)result);
+                return result;
+            }
+        }) {
+            protected void done() {
+                if (isCancelled() && reserved && settled.compareAndSet(false, true)) // Cancelled before it ran
+                    limiter.release(credential, endpoint);
+            }
+        };
+        lane.threads.execute(task);
+        return task;
+    }
+
+    /**
+     * Returns the rate limiter the calls take their turns from.
+     *
+     * @return The rate limiter.
+     */
+    public RateLimiter getLimiter() {
+        return limiter;
+    }
+
+    /**
+     * Runs a call on the lane of a credential and endpoint and waits for its
+     * result.
+     *
+     * @param credential The name of the credential the call is made with.
+     * @param endpoint The API method being called.
+     * @param call The call.
+     * @param timeout Milliseconds to wait before cancelling the call.
+     * @return The result of the call.
+     * @throws TwitterException If the call failed or timed out.
+     * @throws InterruptedException
+     */
+    public <T> T call(String credential, Endpoint endpoint, Callable<T> call, long timeout)
+            throws TwitterException, InterruptedException {
+        List<Future<T>> futures = new ArrayList<Future<T>>(1);
+        futures.add(submit(credential, endpoint, call));
+        return awaitAll(futures, timeout).get(0);
+    }
+
+    /**
+     * Waits for the results of several calls, in the order they were given.
+     * If any call fails, the timeout runs out or the waiting thread is
+     * interrupted, every call that hasn't finished is cancelled.
+     *
+     * @param futures The pending results of the calls.
+     * @param timeout Milliseconds to wait for all of the calls.
+     * @return The results of the calls.
+     * @throws TwitterException If a call failed or the calls timed out.
+     * @throws InterruptedException
+     */
+    public <T> List<T> awaitAll(List<Future<T>> futures, long timeout) throws TwitterException, InterruptedException {
+        long deadline = System.nanoTime() + timeout * NANOSECONDS_IN_A_MILLISECOND;
+        List<T> results = new ArrayList<T>(futures.size());
+        try {
+            for (Future<T> future : futures)
+                results.add(future.get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS));
+            return results;
+        } catch (TimeoutException e) {
+            throw new TwitterException("API calls timed out.", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof TwitterException)
+                throw (TwitterException)e.getCause();
+            throw new TwitterException("API call failed.", e.getCause());
+        } finally {
+            if (results.size() < futures.size()) {
+                for (Future<T> future : futures)
+                    future.cancel(true);
+            }
+        }
+    }
+
+    /**
+     * Stops every lane. Calls that are still running are interrupted.
+     */
+    public synchronized void shutdown() {
+        for (Lane lane : lanes.values())
+            lane.threads.shutdownNow();
+        lanes.clear();
+    }
+
+    /**
+     * Returns the lane of a credential and endpoint, creating it if needed.
+     *
+     * @param credential The name of the credential.
+     * @param endpoint The API method.
+     * @return The lane.
+     */
+    private synchronized Lane lane(String credential, Endpoint endpoint) {
+        final String name = credential + "-" + endpoint;
+        Lane lane = lanes.get(name);
+        if (lane == null) {
+            lane = new Lane(Executors.newFixedThreadPool(laneThreads, new ThreadFactory() {
+                private final AtomicInteger count = new AtomicInteger(0);
+                public Thread newThread(Runnable runnable) {
+                    Thread thread = new Thread(runnable, "ApiExecutor-" + name + "-" + count.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            }), endpoint);
+            lanes.put(name, lane);
+        }
+        return lane;
+    }
+}
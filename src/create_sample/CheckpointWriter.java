@@ -0,0 +1,254 @@
+package create_sample;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Saves the monitors' progress on its own thread, so the sampling loop doesn't wait on the disk. Each cycle the loop
+ * hands over the journal's changes and a copy of the monitors as they are at that moment, and goes on while they
+ * are written to the {@link MonitorJournal} and reported. Only the tweets still getting retweets are copied. Dead
+ * tweets are never observed again, so the checkpoint shares them with the loop, and only the list is copied.
+ *
+ * There's room for one checkpoint being written and one waiting. If the writer falls behind and a checkpoint is
+ * already waiting, the new one is merged into it: their changes are joined and the newer copy of the monitors
+ * replaces the older one. So handing a checkpoint over never blocks, and there are never more than two copies of the
+ * live monitor in memory.
+ *
+ * A checkpoint is durable once {@link #getCompleted()} reaches its number. If writing one fails, the exception is
+ * thrown by the next call to {@link #submit(Collection, Collection)} or {@link #close()}.
+ *
+ * @author José Parada
+ * @version 1.0
+ * @see MonitorJournal
+ */
+public class CheckpointWriter implements Runnable {
+    private final MonitorJournal journal;
+    private final Reporter reporter;
+    private Thread thread;
+    private Checkpoint pending; // Waiting to be written, null if there's none
+    private boolean writing, closed;
+    private long submitted, completed;
+    private IOException failure;
+    private final Metrics.Histogram checkpointTime = Metrics.getShared().histogram("sample_checkpoint_seconds",
+            "Time taken to write a checkpoint to the journal and report it.");
+    private final Metrics.Counter coalesced = Metrics.getShared().counter("sample_checkpoints_coalesced_total",
+            "Checkpoints merged into a waiting one because the writer was behind.");
+
+    /**
+     * Something that reports the monitors after each checkpoint, like the printed monitor files.
+     */
+    public interface Reporter {
+        /**
+         * Reports the monitors as they were when the checkpoint was taken.
+         *
+         * @param monitor A copy of the monitored tweets that are still getting retweets.
+         * @param dead The monitored tweets that are no longer getting retweets, as the loop has them.
+         * @throws IOException
+         */
+        void report(List<MonitoredStatus> monitor, List<MonitoredStatus> dead) throws IOException;
+    }
+
+    /**
+     * The journal's changes and a copy of the monitors as of a certain cycle.
+     */
+    private static class Checkpoint {
+        private final ByteArrayOutputStream changes;
+        private List<MonitoredStatus> monitor, dead;
+        private long number;
+
+        /**
+         * Constructor.
+         *
+         * @param changes The journal's changes since the last checkpoint.
+         * @param monitor A copy of the monitored tweets that are still getting retweets.
+         * @param dead The monitored tweets that are no longer getting retweets, as the loop has them.
+         * @param number The checkpoint's number.
+         */
+        private Checkpoint(byte[] changes, List<MonitoredStatus> monitor, List<MonitoredStatus> dead, long number) {
+            this.changes = new ByteArrayOutputStream(changes.length);
+            this.changes.write(changes, 0, changes.length);
+            this.monitor = monitor;
+            this.dead = dead;
+            this.number = number;
+        }
+    }
+
+    /**
+     * Constructor. The journal has to have been recovered already.
+     *
+     * @param journal The journal the monitors' changes are recorded in.
+     * @param reporter What reports the monitors after each checkpoint, or <code>null</code> for nothing.
+     */
+    public CheckpointWriter(MonitorJournal journal, Reporter reporter) {
+        this.journal = journal;
+        this.reporter = reporter;
+        submitted = 0;
+        completed = 0;
+        writing = false;
+        closed = false;
+    }
+
+    /**
+     * Starts the thread that writes the checkpoints.
+     */
+    public void start() {
+        thread = new Thread(this, "CheckpointWriter");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Takes a checkpoint of the monitors, to be written in the background. The journal's current cycle ends here.
+     * Only copies the tweets still getting retweets and the list of dead ones, it doesn't wait for anything to be
+     * written.
+     *
+     * @param monitor A set of monitored tweets that are still getting retweets.
+     * @param dead A set of monitored tweets that are no longer getting retweets.
+     * @return The checkpoint's number.
+     * @throws IOException If writing a previous checkpoint failed.
+     */
+    public long submit(Collection<MonitoredStatus> monitor, Collection<MonitoredStatus> dead) throws IOException {
+        byte[] changes = journal.seal();
+        List<MonitoredStatus> monitorCopy = copy(monitor), deadCopy = new ArrayList<MonitoredStatus>(dead);
+        synchronized (this) {
+            checkFailure();
+            submitted++;
+            if (pending == null) {
+                pending = new Checkpoint(changes, monitorCopy, deadCopy, submitted);
+            } else { // The writer is behind, so catch the waiting checkpoint up to this one
+                coalesced.increment();
+                pending.changes.write(changes, 0, changes.length);
+                pending.monitor = monitorCopy;
+                pending.dead = deadCopy;
+                pending.number = submitted;
+            }
+            notifyAll();
+            return submitted;
+        }
+    }
+
+    /**
+     * Returns the number of the last checkpoint that was written and synced to disk.
+     *
+     * @return The last durable checkpoint, 0 if there's none yet.
+     */
+    public synchronized long getCompleted() {
+        return completed;
+    }
+
+    /**
+     * Waits until a checkpoint has been written and synced to disk.
+     *
+     * @param number The checkpoint's number.
+     * @throws InterruptedException
+     * @throws IOException If writing a checkpoint failed.
+     */
+    public synchronized void await(long number) throws InterruptedException, IOException {
+        while (completed < number && failure == null)
+            wait();
+        checkFailure();
+    }
+
+    /**
+     * Writes the checkpoints that haven't been written yet and stops the writing thread.
+     *
+     * @throws InterruptedException
+     * @throws IOException If writing a checkpoint failed.
+     */
+    public void close() throws InterruptedException, IOException {
+        synchronized (this) {
+            closed = true;
+            notifyAll();
+        }
+        if (thread != null)
+            thread.join();
+        synchronized (this) {
+            checkFailure();
+        }
+    }
+
+    /**
+     * Writes checkpoints as they're submitted, until the writer is closed and there are none left.
+     */
+    public void run() {
+        Checkpoint checkpoint;
+        long started;
+        while (true) {
+            synchronized (this) {
+                while (pending == null && !closed)
+                    waitForWork();
+                if (pending == null || failure != null)
+                    return;
+                checkpoint = pending;
+                pending = null;
+                writing = true;
+            }
+            started = System.nanoTime();
+            try {
+                journal.write(checkpoint.changes.toByteArray(), checkpoint.monitor, checkpoint.dead);
+                if (reporter != null)
+                    reporter.report(checkpoint.monitor, checkpoint.dead);
+                checkpointTime.observeSince(started);
+                synchronized (this) {
+                    completed = checkpoint.number;
+                    writing = false;
+                    notifyAll();
+                }
+            } catch (IOException e) {
+                System.out.println("Method: run. Could not write checkpoint " + checkpoint.number + ".");
+                synchronized (this) {
+                    failure = e;
+                    writing = false;
+                    notifyAll();
+                }
+                return;
+            }
+        }
+    }
+
+    /**
+     * Returns whether a checkpoint is being written or waiting to be.
+     *
+     * @return True if the writer has work left, false otherwise.
+     */
+    public synchronized boolean isBusy() {
+        return writing || pending != null;
+    }
+
+    /**
+     * Waits to be notified of a new checkpoint. Called while holding the lock.
+     */
+    private void waitForWork() {
+        try {
+            wait();
+        } catch (InterruptedException e) { // Keep going until closed
+        }
+    }
+
+    /**
+     * Throws the exception writing a checkpoint failed with, if it did. Called while holding the lock.
+     *
+     * @throws IOException
+     */
+    private void checkFailure() throws IOException {
+        if (failure != null)
+            throw new IOException("Method: checkFailure. Could not write a checkpoint.", failure);
+    }
+
+    /**
+     * Copies every tweet in a monitor as it is now.
+     *
+     * @param monitor The monitored tweets.
+     * @return A list of copies.
+     * @see MonitoredStatus#copy()
+     */
+    private static List<MonitoredStatus> copy(Collection<MonitoredStatus> monitor) {
+        List<MonitoredStatus> copies = new ArrayList<MonitoredStatus>(monitor.size());
+        for (MonitoredStatus tweet : monitor)
+            copies.add(tweet.copy());
+        return copies;
+    }
+}
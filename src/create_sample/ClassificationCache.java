@@ -0,0 +1,250 @@
+package create_sample;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Remembers the sentiment and topic of texts that were already classified, so copies of the same tweet, like
+ * copy-paste campaigns, quote templates and spam, aren't scored by the classifiers again.
+ *
+ * Texts are keyed by a 64 bit hash of their normalized form: lower case, with links removed, since they're shortened
+ * differently for every tweet, and with runs of whitespace as a single space. So texts that only differ in those
+ * get the classification of the first one seen.
+ *
+ * The cache is split in segments by key, each one a least recently used list with its own lock, so the threads of a
+ * {@link ClassifierPool} rarely wait for each other. When a segment is full its least recently used text is evicted,
+ * and a text classified longer ago than the maximum age is classified again. Hits, misses and evictions are counted
+ * in the shared {@link Metrics}.
+ *
+ * @author José Parada
+ * @version 1.0
+ * @see ClassifierPool
+ */
+public class ClassificationCache {
+    private static final int SEGMENTS = 16; // A power of two
+    private static final int SEGMENT_BITS = 4;
+    private static final long FNV_OFFSET = 0xcbf29ce484222325L, FNV_PRIME = 0x100000001b3L;
+    private static final long GOLDEN_RATIO = 0x9E3779B97F4A7C15L; // Spreads keys over the segments
+    private final Segment[] segments;
+    private final long maxAge;
+    private final AtomicInteger size;
+    private final Metrics.Counter hits, misses, evictedFull, evictedOld;
+    private final Metrics.Gauge sizeGauge;
+
+    /**
+     * A classified text's sentiment and topic.
+     */
+    public static class Entry {
+        private final String sentiment, topic;
+        private final long classified;
+
+        /**
+         * Constructor.
+         *
+         * @param sentiment The text's sentiment.
+         * @param topic The text's topic.
+         * @param classified When the text was classified, in epoch milliseconds.
+         */
+        private Entry(String sentiment, String topic, long classified) {
+            this.sentiment = sentiment;
+            this.topic = topic;
+            this.classified = classified;
+        }
+
+        /**
+         * Returns the text's sentiment.
+         *
+         * @return "pos", "neg" or "neu".
+         */
+        public String getSentiment() {
+            return sentiment;
+        }
+
+        /**
+         * Returns the text's topic.
+         *
+         * @return A topic from the list in {@link TopicClassifier the class description}.
+         */
+        public String getTopic() {
+            return topic;
+        }
+    }
+
+    /**
+     * Part of the cache, with the keys that fall in it in least recently used order.
+     */
+    private class Segment extends LinkedHashMap<Long, Entry> {
+        private static final long serialVersionUID = 1L;
+        private final int capacity;
+
+        /**
+         * Constructor.
+         *
+         * @param capacity The amount of texts the segment can hold.
+         */
+        private Segment(int capacity) {
+            super(16, 0.75f, true); // Access order, least recently used first
+            this.capacity = capacity;
+        }
+
+        /**
+         * Evicts the least recently used text once the segment is over capacity.
+         *
+         * @param eldest The least recently used text.
+         * @return True if it should be evicted, false otherwise.
+         */
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Long, Entry> eldest) {
+            if (size() <= capacity)
+                return false;
+            evictedFull.increment();
+            size.decrementAndGet();
+            return true;
+        }
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param capacity The amount of texts the cache can hold.
+     * @param maxAge How long a classification is used for, in milliseconds.
+     */
+    public ClassificationCache(int capacity, long maxAge) {
+        Metrics metrics = Metrics.getShared();
+        this.maxAge = maxAge;
+        segments = new Segment[SEGMENTS];
+        for (int i = 0; i < SEGMENTS; i++)
+            segments[i] = new Segment(Math.max(1, capacity / SEGMENTS));
+        size = new AtomicInteger();
+        hits = metrics.counter("sample_classify_cache_hits_total", "Texts whose classification was in the cache.");
+        misses = metrics.counter("sample_classify_cache_misses_total", "Texts that had to be classified.");
+        evictedFull = metrics.counter("sample_classify_cache_evictions_total", "Classifications evicted from the cache.", 
+                "reason", "size");
+        evictedOld = metrics.counter("sample_classify_cache_evictions_total", "Classifications evicted from the cache.",
+                "reason", "age");
+        sizeGauge = metrics.gauge("sample_classify_cache_entries", "Classifications in the cache.");
+    }
+
+    /**
+     * Returns the key a text is cached under, the hash of its normalized form.
+     *
+     * @param text A tweet's text.
+     * @return The text's key.
+     */
+    public static long key(String text) {
+        long hash = FNV_OFFSET;
+        int i = 0, length = text.length();
+        boolean space = false, started = false;
+        char c;
+        while (i < length) {
+            if (text.startsWith("http://", i) || text.startsWith("https://", i)) { // Skip the link
+                while (i < length && !Character.isWhitespace(text.charAt(i)))
+                    i++;
+                continue;
+            }
+            c = text.charAt(i);
+            i++;
+            if (Character.isWhitespace(c)) {
+                space = started;
+                continue;
+            }
+            if (space) { // A single space for the whitespace before, unless it's at the start
+                hash = (hash ^ ' ') * FNV_PRIME;
+                space = false;
+            }
+            hash = (hash ^ Character.toLowerCase(c)) * FNV_PRIME;
+            started = true;
+        }
+        return hash;
+    }
+
+    /**
+     * Returns a text's classification, if it's in the cache and isn't too old.
+     *
+     * @param key The text's key.
+     * @return The text's classification, or <code>null</code> if it has to be classified.
+     * @see #key(String)
+     */
+    public Entry get(long key) {
+        Segment segment = segmentFor(key);
+        Entry entry;
+        synchronized (segment) {
+            entry = segment.get(key);
+            if (entry != null && System.currentTimeMillis() - entry.classified > maxAge) {
+                segment.remove(key);
+                size.decrementAndGet();
+                evictedOld.increment();
+                entry = null;
+            }
+        }
+        if (entry == null)
+            misses.increment();
+        else
+            hits.increment();
+        return entry;
+    }
+
+    /**
+     * Adds a text's classification to the cache.
+     *
+     * @param key The text's key.
+     * @param sentiment The text's sentiment.
+     * @param topic The text's topic.
+     * @see #key(String)
+     */
+    public void put(long key, String sentiment, String topic) {
+        Segment segment = segmentFor(key);
+        synchronized (segment) {
+            if (segment.put(key, new Entry(sentiment, topic, System.currentTimeMillis())) == null)
+                size.incrementAndGet();
+        }
+        sizeGauge.set(size.get());
+    }
+
+    /**
+     * Evicts every classification older than the maximum age.
+     *
+     * @return The amount of classifications evicted.
+     */
+    public int evictOld() {
+        long oldest = System.currentTimeMillis() - maxAge;
+        int evicted = 0;
+        Iterator<Entry> entries;
+        for (Segment segment : segments) {
+            synchronized (segment) {
+                entries = segment.values().iterator();
+                while (entries.hasNext()) {
+                    if (entries.next().classified < oldest) {
+                        entries.remove();
+                        evicted++;
+                    }
+                }
+            }
+        }
+        size.addAndGet(-evicted);
+        evictedOld.add(evicted);
+        sizeGauge.set(size.get());
+        return evicted;
+    }
+
+    /**
+     * Returns the amount of texts in the cache.
+     *
+     * @return The cache's size.
+     */
+    public int size() {
+        return size.get();
+    }
+
+    /**
+     * Returns the segment a key falls in.
+     *
+     * @param key A text's key.
+     * @return The key's segment.
+     */
+    private Segment segmentFor(long key) {
+        return segments[(int)((key * GOLDEN_RATIO) >>> (Long.SIZE - SEGMENT_BITS))];
+    }
+}
@@ -0,0 +1,29 @@
+package create_sample;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Flight Recorder event for a tweet classified by the {@link SentimentClassifier} or the {@link TopicClassifier}.
+ *
+ * @author José Parada
+ * @version 1.0
+ * @see SentimentClassifier
+ * @see TopicClassifier
+ */
+@Name("create_sample.Classification")
+@Label("Classification")
+@Category({"Retweet Classifier", "Classification"})
+@Description("A tweet's text classified by the sentiment or topic classifier.")
+class ClassificationEvent extends jdk.jfr.Event {
+    @Label("Classifier")
+    String classifier;
+
+    @Label("Category")
+    String category;
+
+    @Label("Text Length")
+    int textLength;
+}
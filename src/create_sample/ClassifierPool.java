@@ -0,0 +1,159 @@
+package create_sample;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Classifies the sentiment and topic of batches of tweets on a fixed pool of threads, so classification uses every
+ * core instead of one.
+ *
+ * Every thread shares the same two classifiers. The topic model is saved compiled, and the sentiment model, saved
+ * as a dynamic classifier, is compiled by {@link SentimentClassifier} when it's read. A compiled LingPipe classifier
+ * is only read while classifying, so it can be used by several threads at once without copies or locks.
+ *
+ * Batches are split into one chunk per thread. Batches too small to be worth splitting are classified on the
+ * calling thread. Texts whose classification is in the pool's {@link ClassificationCache} aren't classified again.
+ *
+ * @author José Parada
+ * @version 1.0
+ * @see SentimentClassifier
+ * @see TopicClassifier
+ */
+public class ClassifierPool {
+    private static final int MIN_CHUNK_SIZE = 4; // Fewer texts than this aren't worth handing to another thread
+    private final SentimentClassifier sentimentClassifier;
+    private final TopicClassifier topicClassifier;
+    private final ClassificationCache cache;
+    private final int threads;
+    private final ExecutorService pool;
+    private final Metrics.Histogram sentimentTime, topicTime;
+
+    /**
+     * Constructor. Starts the pool's threads.
+     *
+     * @param sentimentClassifier A sentiment classifier, for classifying the tweet text's sentiment.
+     * @param topicClassifier A topic classifier, for classifying the tweet text's topic.
+     * @param threads The amount of texts that can be classified at the same time, usually the amount of cores.
+     * @param cache The classifications of texts already seen, or <code>null</code> to classify every text.
+     */
+    public ClassifierPool(SentimentClassifier sentimentClassifier, TopicClassifier topicClassifier, int threads,
+            ClassificationCache cache) {
+        this.sentimentClassifier = sentimentClassifier;
+        this.topicClassifier = topicClassifier;
+        this.cache = cache;
+        this.threads = threads;
+        pool = Executors.newFixedThreadPool(threads, new ThreadFactory() {
+            private final AtomicInteger count = new AtomicInteger();
+
+            public Thread newThread(Runnable runnable) {
+                Thread thread = new Thread(runnable, "ClassifierPool-" + count.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+        sentimentTime = Metrics.getShared().histogram("sample_classify_seconds", "Time taken to classify a tweet.",
+                "classifier", "sentiment");
+        topicTime = Metrics.getShared().histogram("sample_classify_seconds", "Time taken to classify a tweet.",
+                "classifier", "topic");
+    }
+
+    /**
+     * Classifies the sentiment and topic of a batch of texts, and waits for all of them.
+     *
+     * @param texts The texts of the tweets we want to classify.
+     * @param sentiments Where each text's sentiment is put, at the text's position. At least as long as the batch.
+     * @param topics Where each text's topic is put, at the text's position. At least as long as the batch.
+     * @throws InterruptedException If interrupted while waiting. The pool's threads are left to finish the batch.
+     */
+    public void classifyAll(final List<String> texts, final String[] sentiments, final String[] topics) 
+            throws InterruptedException {
+        List<Callable<Void>> chunks = new ArrayList<Callable<Void>>();
+        int chunkSize = Math.max(MIN_CHUNK_SIZE, (texts.size() + threads - 1) / threads);
+        if (texts.size() <= MIN_CHUNK_SIZE || threads == 1) {
+            classify(texts, 0, texts.size(), sentiments, topics);
+            return;
+        }
+        for (int i = 0; i < texts.size(); i += chunkSize) {
+            final int from = i, to = Math.min(i + chunkSize, texts.size());
+            chunks.add(new Callable<Void>() {
+                public Void call() {
+                    classify(texts, from, to, sentiments, topics);
+                    return null;
+                }
+            });
+        }
+        try {
+            for (Future<Void> chunk : pool.invokeAll(chunks))
+                chunk.get();
+        } catch (ExecutionException e) { // Classifiers don't throw checked exceptions
+            if (e.getCause() instanceof RuntimeException)
+                throw (RuntimeException)e.getCause();
+            throw (Error)e.getCause();
+        }
+    }
+
+    /**
+     * Returns the amount of texts that can be classified at the same time.
+     *
+     * @return The amount of threads in the pool.
+     */
+    public int getThreads() {
+        return threads;
+    }
+
+    /**
+     * Returns the classifications of texts already seen.
+     *
+     * @return The pool's cache, or <code>null</code> if it has none.
+     */
+    public ClassificationCache getCache() {
+        return cache;
+    }
+
+    /**
+     * Stops the pool's threads once they've finished the batches they were given.
+     */
+    public void shutdown() {
+        pool.shutdown();
+    }
+
+    /**
+     * Classifies part of a batch of texts.
+     *
+     * @param texts The texts of the tweets we want to classify.
+     * @param from The position of the first text to classify.
+     * @param to The position after the last text to classify.
+     * @param sentiments Where each text's sentiment is put.
+     * @param topics Where each text's topic is put.
+     */
+    private void classify(List<String> texts, int from, int to, String[] sentiments, String[] topics) {
+        ClassificationCache.Entry cached;
+        long started, key = 0;
+        for (int i = from; i < to; i++) {
+            if (cache != null) {
+                key = ClassificationCache.key(texts.get(i));
+                cached = cache.get(key);
+                if (cached != null) {
+                    sentiments[i] = cached.getSentiment();
+                    topics[i] = cached.getTopic();
+                    continue;
+                }
+            }
+            started = System.nanoTime();
+            sentiments[i] = sentimentClassifier.classify(texts.get(i));
+            sentimentTime.observeSince(started);
+            started = System.nanoTime();
+            topics[i] = topicClassifier.classify(texts.get(i));
+            topicTime.observeSince(started);
+            if (cache != null)
+                cache.put(key, sentiments[i], topics[i]);
+        }
+    }
+}
@@ -0,0 +1,114 @@
+package create_sample;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Packs a training corpus laid out as a directory per category, with a file per example, like topics/, into a single
+ * file that a {@link PackedCorpus} can read. Categories and examples are packed in name order, so packing the same
+ * corpus twice gives the same file.
+ *
+ * Usage: <code>java create_sample.CorpusPacker [topics [topics.corpus]]</code>
+ *
+ * @author José Parada
+ * @version 1.0
+ * @see PackedCorpus
+ */
+public class CorpusPacker {
+    private static final String DEFAULT_DIR = "topics";
+    private static final String DEFAULT_CORPUS = "topics.corpus";
+
+    /**
+     * Packs the corpus in the directory given in the first argument into the file given in the second.
+     *
+     * @param args The corpus directory, topics by default, and the packed file, topics.corpus by default.
+     * @throws IOException
+     */
+    public static void main(String[] args) throws IOException {
+        File dir = new File(args.length > 0 ? args[0] : DEFAULT_DIR);
+        File packed = new File(args.length > 1 ? args[1] : DEFAULT_CORPUS);
+        int examples;
+        try {
+            examples = pack(dir, packed);
+        } catch (IOException e) {
+            System.out.println("Fatal: Could not pack " + dir + ".");
+            throw e;
+        }
+        System.out.println("Packed " + examples + " examples from " + dir + " to " + packed + ".");
+    }
+
+    /**
+     * Packs a corpus directory into a single file, replacing any previous file with the same name.
+     *
+     * @param dir The corpus directory, with a directory for each category.
+     * @param packed The packed corpus to write.
+     * @return The amount of examples packed.
+     * @throws IOException
+     */
+    public static int pack(File dir, File packed) throws IOException {
+        List<Path> categories = list(dir.toPath(), true);
+        List<List<byte[]>> texts = new ArrayList<List<byte[]>>(categories.size());
+        List<byte[]> examples;
+        DataOutputStream output;
+        byte[] name;
+        int count = 0;
+        for (Path category : categories) {
+            examples = new ArrayList<byte[]>();
+            for (Path file : list(category, false))
+                examples.add(Files.readAllBytes(file));
+            texts.add(examples);
+            count += examples.size();
+        }
+        output = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(packed)));
+        try {
+            output.writeInt(PackedCorpus.MAGIC);
+            output.writeShort(PackedCorpus.VERSION);
+            output.writeInt(categories.size());
+            for (int i = 0; i < categories.size(); i++) {
+                name = categories.get(i).getFileName().toString().getBytes(PackedCorpus.CHARSET);
+                output.writeShort(name.length);
+                output.write(name);
+                output.writeInt(texts.get(i).size());
+                for (byte[] text : texts.get(i))
+                    output.writeInt(text.length);
+            }
+            for (List<byte[]> category : texts)
+                for (byte[] text : category)
+                    output.write(text);
+        } finally {
+            output.close();
+        }
+        return count;
+    }
+
+    /**
+     * Lists the directories or the files in a directory, in name order.
+     *
+     * @param dir The directory.
+     * @param directories True to list the directories in it, false to list the files.
+     * @return The directories or files.
+     * @throws IOException
+     */
+    private static List<Path> list(Path dir, boolean directories) throws IOException {
+        List<Path> paths = new ArrayList<Path>();
+        DirectoryStream<Path> entries = Files.newDirectoryStream(dir);
+        try {
+            for (Path entry : entries)
+                if (Files.isDirectory(entry) == directories)
+                    paths.add(entry);
+        } finally {
+            entries.close();
+        }
+        Collections.sort(paths);
+        return paths;
+    }
+}
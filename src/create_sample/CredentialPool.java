@@ -0,0 +1,202 @@
+package create_sample;
+
+import java.io.BufferedInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Properties;
+import java.util.TreeSet;
+
+import twitter4j.Twitter;
+import twitter4j.TwitterException;
+import twitter4j.TwitterFactory;
+import twitter4j.conf.ConfigurationBuilder;
+
+/**
+ * The Twitter credentials we make calls with. Each set of keys gives us two clients with their own rate limits, one
+ * with user authorization and one with app authorization, so every set added raises the amount of calls we can make
+ * every 15 minutes.
+ *
+ * The keys are read from a properties file like this one, where <code>name</code> is any name for the set:
+ * <pre>
+ * credential.name.consumerKey=...
+ * credential.name.consumerSecret=...
+ * credential.name.accessToken=...
+ * credential.name.accessTokenSecret=...
+ * </pre>
+ * Sets without an access token only get the app client. If the file doesn't exist, the keys in
+ * twitter4j.properties are used as the only set.
+ *
+ * @author José Parada
+ * @version 1.0
+ * @see RateLimiter
+ */
+public class CredentialPool {
+    private static final String PREFIX = "credential.";
+    private static final String DEFAULT_NAME = "default"; // Name of the set in twitter4j.properties
+    private final Properties keys; // Null if the keys are in twitter4j.properties
+    private final RateLimiter limiter;
+    private final List<String> credentials;
+    private final HashMap<String, Twitter> clients;
+
+    /**
+     * Constructor. Adds every credential to the rate limiter, but doesn't connect until {@link #connect()} is
+     * called.
+     *
+     * @param keys The keys of every set of credentials, or <code>null</code> to use twitter4j.properties.
+     * @param limiter The rate limiter that keeps track of every credential's calls.
+     */
+    public CredentialPool(Properties keys, RateLimiter limiter) {
+        TreeSet<String> names = new TreeSet<String>();
+        this.keys = keys;
+        this.limiter = limiter;
+        credentials = new ArrayList<String>();
+        clients = new HashMap<String, Twitter>();
+        if (keys == null) {
+            names.add(DEFAULT_NAME);
+        } else {
+            for (String property : keys.stringPropertyNames()) {
+                if (property.startsWith(PREFIX) && property.indexOf('.', PREFIX.length()) > 0)
+                    names.add(property.substring(PREFIX.length(), property.indexOf('.', PREFIX.length())));
+            }
+        }
+        for (String name : names) {
+            if (keys == null || keys.getProperty(PREFIX + name + ".accessToken") != null) {
+                credentials.add(name + "-user");
+                limiter.addCredential(name + "-user", false);
+            }
+            credentials.add(name + "-app");
+            limiter.addCredential(name + "-app", true);
+        }
+    }
+
+    /**
+     * Reads the credentials from a properties file, or from twitter4j.properties if the file doesn't exist.
+     *
+     * @param file The properties file with the keys.
+     * @param limiter The rate limiter that keeps track of every credential's calls.
+     * @return The credential pool.
+     * @throws IOException If the file can't be read, or doesn't have any set of keys.
+     */
+    public static CredentialPool load(File file, RateLimiter limiter) throws IOException {
+        CredentialPool pool;
+        Properties keys;
+        InputStream in;
+        if (!file.exists())
+            return new CredentialPool(null, limiter);
+        keys = new Properties();
+        in = new BufferedInputStream(new FileInputStream(file));
+        try {
+            keys.load(in);
+        } finally {
+            in.close();
+        }
+        pool = new CredentialPool(keys, limiter);
+        if (pool.credentials.isEmpty())
+            throw new IOException("Method: load. " + file + " has no credentials. Each set of keys has to be given as "
+                    + PREFIX + "<name>.consumerKey, " + PREFIX + "<name>.consumerSecret and, for user authorization, "
+                    + PREFIX + "<name>.accessToken and " + PREFIX + "<name>.accessTokenSecret.");
+        return pool;
+    }
+
+    /**
+     * Creates a client for every credential, replacing the previous ones. App clients get their bearer token here.
+     *
+     * @throws TwitterException
+     */
+    public synchronized void connect() throws TwitterException {
+        String name;
+        ConfigurationBuilder builder;
+        Twitter client;
+        for (String credential : credentials) {
+            name = credential.substring(0, credential.lastIndexOf('-'));
+            if (keys == null && credential.endsWith("-user")) {
+                clients.put(credential, TwitterFactory.getSingleton());
+                continue;
+            }
+            builder = new ConfigurationBuilder();
+            if (keys != null) {
+                builder.setOAuthConsumerKey(keys.getProperty(PREFIX + name + ".consumerKey"));
+                builder.setOAuthConsumerSecret(keys.getProperty(PREFIX + name + ".consumerSecret"));
+            }
+            if (credential.endsWith("-app")) {
+                builder.setApplicationOnlyAuthEnabled(true);
+                client = new TwitterFactory(builder.build()).getInstance();
+                client.getOAuth2Token();
+            } else {
+                builder.setOAuthAccessToken(keys.getProperty(PREFIX + name + ".accessToken"));
+                builder.setOAuthAccessTokenSecret(keys.getProperty(PREFIX + name + ".accessTokenSecret"));
+                client = new TwitterFactory(builder.build()).getInstance();
+            }
+            clients.put(credential, client);
+        }
+    }
+
+    /**
+     * Returns the name of every credential, user clients before app clients of the same set.
+     *
+     * @return The credentials' names.
+     */
+    public List<String> getCredentials() {
+        return Collections.unmodifiableList(credentials);
+    }
+
+    /**
+     * Returns the client of a credential.
+     *
+     * @param credential The name of the credential.
+     * @return The Twitter object that makes calls with the credential.
+     */
+    public synchronized Twitter get(String credential) {
+        return clients.get(credential);
+    }
+
+    /**
+     * Returns the client of the first credential, for calls that aren't worth spreading out.
+     *
+     * @return The first credential's Twitter object.
+     */
+    public Twitter getDefault() {
+        return get(credentials.get(0));
+    }
+
+    /**
+     * Returns the credential with the most calls left to an API method. If none have calls left, returns the one
+     * whose rate limit window resets first.
+     *
+     * @param endpoint The API method.
+     * @return The name of the credential.
+     */
+    public String pick(Endpoint endpoint) {
+        String best = credentials.get(0), soonest = best;
+        int bestRemaining = -1, remaining;
+        for (String credential : credentials) {
+            remaining = limiter.remaining(credential, endpoint);
+            if (remaining > bestRemaining) {
+                best = credential;
+                bestRemaining = remaining;
+            }
+            if (limiter.waitTime(credential, endpoint) < limiter.waitTime(soonest, endpoint))
+                soonest = credential;
+        }
+        return bestRemaining > 0 ? best : soonest;
+    }
+
+    /**
+     * Returns the calls left to an API method through every credential.
+     *
+     * @param endpoint The API method.
+     * @return The calls left in the current rate limit windows.
+     */
+    public int remaining(Endpoint endpoint) {
+        int left = 0;
+        for (String credential : credentials)
+            left += limiter.remaining(credential, endpoint);
+        return left;
+    }
+}
@@ -0,0 +1,31 @@
+package create_sample;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Flight Recorder event for a tweet's diffusion graph being built, every follower page it needed included.
+ *
+ * @author José Parada
+ * @version 1.0
+ * @see FollowerPageEvent
+ */
+@Name("create_sample.DiffusionGraph")
+@Label("Diffusion Graph")
+@Category({"Retweet Classifier", "Diffusion Graph"})
+@Description("A tweet's diffusion graph built from its retweeters' followers.")
+class DiffusionGraphEvent extends jdk.jfr.Event {
+    @Label("Tweet ID")
+    long tweetId;
+
+    @Label("Retweeters")
+    int retweeters;
+
+    @Label("Nodes")
+    int nodes;
+
+    @Label("Depth")
+    int depth;
+}
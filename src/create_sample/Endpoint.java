@@ -0,0 +1,63 @@
+package create_sample;
+
+/**
+ * The Twitter API methods we call, named after the resources Twitter uses to
+ * report their rate limits. Each one has the calls allowed every 15 minutes
+ * through user and app authorization, which are only used until Twitter
+ * reports the real limits.
+ *
+ * @author José Parada
+ * @version 1.0
+ * @see ApiExecutor
+ */
+public enum Endpoint {
+    LOOKUP("/statuses/lookup", 180, 60),
+    SHOW_STATUS("/statuses/show/:id", 180, 180),
+    RETWEETS("/statuses/retweets/:id", 15, 60),
+    RETWEETER_IDS("/statuses/retweeters/ids", 15, 60),
+    LOOKUP_USERS("/users/lookup", 180, 60),
+    FOLLOWER_IDS("/followers/ids", 15, 15);
+
+    private final String resource;
+    private final int userLimit, appLimit;
+
+    /**
+     * Constructor.
+     *
+     * @param resource The resource Twitter reports this method's rate limit under.
+     * @param userLimit Calls allowed every 15 minutes through user authorization.
+     * @param appLimit Calls allowed every 15 minutes through app authorization.
+     */
+    private Endpoint(String resource, int userLimit, int appLimit) {
+        this.resource = resource;
+        this.userLimit = userLimit;
+        this.appLimit = appLimit;
+    }
+
+    /**
+     * Returns the resource Twitter reports this method's rate limit under.
+     *
+     * @return The resource name, such as "/statuses/lookup".
+     */
+    public String getResource() {
+        return resource;
+    }
+
+    /**
+     * Returns the calls allowed every 15 minutes through user authorization.
+     *
+     * @return The documented user limit.
+     */
+    public int getUserLimit() {
+        return userLimit;
+    }
+
+    /**
+     * Returns the calls allowed every 15 minutes through app authorization.
+     *
+     * @return The documented app limit.
+     */
+    public int getAppLimit() {
+        return appLimit;
+    }
+}
@@ -0,0 +1,33 @@
+package create_sample;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Flight Recorder event for a page of an user's followers fetched while building a diffusion graph, retries
+ * included.
+ *
+ * @author José Parada
+ * @version 1.0
+ * @see DiffusionGraphEvent
+ */
+@Name("create_sample.FollowerPage")
+@Label("Follower Page")
+@Category({"Retweet Classifier", "Diffusion Graph"})
+@Description("A page of an user's follower IDs.")
+class FollowerPageEvent extends jdk.jfr.Event {
+    @Label("User ID")
+    long userId;
+
+    @Label("Cursor")
+    long cursor;
+
+    @Label("Credential")
+    String credential;
+
+    @Label("Followers")
+    @Description("Follower IDs in the page, 0 if it couldn't be fetched.")
+    int followers;
+}
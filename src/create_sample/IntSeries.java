@@ -0,0 +1,135 @@
+package create_sample;
+
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+
+/**
+ * A growable series of <code>int</code> values, one per observation, kept in an array so adding a value doesn't
+ * box it or allocate a list node. Only the values that were added are serialized.
+ *
+ * @author José Parada
+ * @version 1.0
+ * @see MonitoredStatus
+ */
+public class IntSeries implements Serializable {
+    private static final long serialVersionUID = 1L;
+    private static final int INITIAL_CAPACITY = 8;
+    private transient int[] values;
+    private transient int size;
+
+    /**
+     * Constructor. Creates an empty series.
+     */
+    public IntSeries() {
+        values = new int[INITIAL_CAPACITY];
+        size = 0;
+    }
+
+    /**
+     * Adds a value at the end of the series.
+     *
+     * @param value The value.
+     */
+    public void add(int value) {
+        if (size == values.length)
+            values = Arrays.copyOf(values, size * 2);
+        values[size] = value;
+        size++;
+    }
+
+    /**
+     * Returns a value of the series.
+     *
+     * @param index The index of the value, 0 being the first one added.
+     * @return The value.
+     * @throws IndexOutOfBoundsException If there's no value at <code>index</code>.
+     */
+    public int get(int index) {
+        if (index < 0 || index >= size)
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+        return values[index];
+    }
+
+    /**
+     * Returns the last value added to the series.
+     *
+     * @return The last value.
+     * @throws NoSuchElementException If the series is empty.
+     */
+    public int getLast() {
+        if (size == 0)
+            throw new NoSuchElementException();
+        return values[size - 1];
+    }
+
+    /**
+     * Returns the amount of values in the series.
+     *
+     * @return The size of the series.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns whether the series is empty.
+     *
+     * @return True if no values have been added, false otherwise.
+     */
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Returns a copy of the series, which doesn't change when values are added to this one.
+     *
+     * @return A new series with the same values.
+     */
+    public IntSeries copy() {
+        IntSeries copy = new IntSeries();
+        copy.values = Arrays.copyOf(values, Math.max(size, INITIAL_CAPACITY));
+        copy.size = size;
+        return copy;
+    }
+
+    /**
+     * Returns a copy of the series' values.
+     *
+     * @return An array with every value, in the order they were added.
+     */
+    public int[] toArray() {
+        return Arrays.copyOf(values, size);
+    }
+
+    /**
+     * Writes the amount of values and then the values.
+     *
+     * @param out The stream to write to.
+     * @throws IOException
+     */
+    private void writeObject(ObjectOutputStream out) throws IOException {
+        out.defaultWriteObject();
+        out.writeInt(size);
+        for (int i = 0; i < size; i++)
+            out.writeInt(values[i]);
+    }
+
+    /**
+     * Reads a series written by {@link #writeObject(ObjectOutputStream)}.
+     *
+     * @param in The stream to read from.
+     * @throws IOException
+     * @throws ClassNotFoundException
+     */
+    private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+        in.defaultReadObject();
+        size = in.readInt();
+        values = new int[Math.max(size, INITIAL_CAPACITY)];
+        for (int i = 0; i < size; i++)
+            values[i] = in.readInt();
+    }
+}
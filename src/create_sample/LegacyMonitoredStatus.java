@@ -0,0 +1,67 @@
+package create_sample;
+
+import java.io.Serializable;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.LinkedList;
+
+import twitter4j.User;
+
+/**
+ * A monitored tweet as the first version of {@link MonitoredStatus} serialized it, with its retweeters as Twitter4J
+ * users and its history in linked lists. Only used to read the .ser files written before monitors were saved as
+ * monitor files, so it has exactly the fields that version had, and nothing else.
+ *
+ * @author José Parada
+ * @version 1.0
+ * @see MonitorConverter
+ */
+class LegacyMonitoredStatus implements Serializable {
+    static final long serialVersionUID = 1L; // The version of MonitoredStatus this was serialized as
+    private long id;
+    private String text, sentiment, topic;
+    private Date tweetCreated;
+    private Date startedMonitoring;
+    private LinkedList<Integer> retweetCount;
+    private HashSet<User> retweeters;
+    private LinkedList<Double> retweetLikelihood;
+    private LinkedList<Double> combined; // Worked out from the other two now, not converted
+    private int treeDepth;
+    private int inactivePeriods, authorFollowerNumber;
+    private boolean isDirect, hasMention, hasHashtag, hasURL, isExclamation, isQuestion, hasPositiveEmoticon, 
+    hasNegativeEmoticon;
+
+    /**
+     * Not instantiable, only deserialized.
+     */
+    private LegacyMonitoredStatus() {
+    }
+
+    /**
+     * Converts this tweet to the current version of {@link MonitoredStatus}. The retweeters are added to the shared
+     * {@link UserRegistry}, without replacing follower counts it already has, since we don't know when these were
+     * fetched.
+     *
+     * @return The same tweet, with the same history.
+     */
+    MonitoredStatus toMonitoredStatus() {
+        MonitoredStatus unpacked = new MonitoredStatus(id, text, tweetCreated, isDirect, hasMention, hasHashtag, hasURL, 
+                isExclamation, isQuestion, hasPositiveEmoticon, hasNegativeEmoticon, authorFollowerNumber, sentiment, 
+                topic); // Packs the flags, dates and codes the same way new tweets are
+        IntSeries counts = new IntSeries();
+        DoubleSeries likelihoods = new DoubleSeries();
+        RetweeterSet users = new RetweeterSet();
+        for (Integer count : retweetCount)
+            counts.add(count);
+        for (Double likelihood : retweetLikelihood)
+            likelihoods.add(likelihood);
+        if (retweeters != null) // Could be set to null
+            for (User user : retweeters)
+                if (user != null)
+                    users.add(UserRegistry.getShared().intern(user.getId(), user.getFollowersCount(), 0));
+        return new MonitoredStatus(id, text, unpacked.getTweetCreatedMillis(), startedMonitoring.getTime(), 
+                MonitoredStatus.estimateLastObserved(startedMonitoring.getTime(), counts.size()), unpacked.getFlags(), 
+                unpacked.getSentimentCode(), unpacked.getTopicCode(), authorFollowerNumber, treeDepth, inactivePeriods, 
+                counts, likelihoods, users);
+    }
+}
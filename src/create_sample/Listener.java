@@ -1,31 +1,44 @@
 package create_sample;
 
-import java.util.LinkedList;
+import java.io.IOException;
+import java.util.Collection;
+import java.util.concurrent.CountDownLatch;
 import twitter4j.StallWarning;
 import twitter4j.Status;
 import twitter4j.StatusDeletionNotice;
 import twitter4j.StatusListener;
+import twitter4j.TwitterException;
 
 /**
- * Retrieves the tweets being streamed from the Streaming API.
+ * Retrieves the tweets being streamed from the Streaming API. Tweets are
+ * handed to the consumer through a bounded {@link StatusRingBuffer}, which
+ * can be drained while streaming is still going. If the consumer falls behind
+ * and the buffer fills up, new tweets are dropped.
+ * 
+ * The listener signals the thread waiting in {@link #awaitDone()} as soon as
+ * the limit is hit, an unrecoverable exception occurs or the stream ends.
+ * Other exceptions are only logged, since the stream reconnects on its own
+ * after them.
  * 
  * @author José Parada
  * @version 1.0
  */
 public class Listener implements StatusListener {
-    private int count, maxCount;
-    private LinkedList<Status> tweets;
-    private boolean error;
+    private static final int DEFAULT_CAPACITY = 8192; // Tweets the buffer holds if no capacity is given
+    private static final int[] UNRECOVERABLE_CODES = {401, 403, 404, 406, 413, 416}; // The stream won't reconnect
+    private volatile int count, dropped; // Only written by the stream thread
+    private int maxCount;
+    private StatusRingBuffer tweets;
+    private volatile boolean error;
+    private StatusRecorder recorder;
+    private CountDownLatch done; // Released once the limit is hit, an unrecoverable exception occurs or the stream ends
     
     /**
      * Constructor with an upper limit of <code>Integer.MAX_VALUE - 1</code> 
      * tweets.
      */
     public Listener() {
-        count = 0;
-        error = false;
-        maxCount = Integer.MAX_VALUE - 1;
-        tweets = new LinkedList<Status>();
+        this(Integer.MAX_VALUE - 1);
     }
 
     /**
@@ -34,9 +47,30 @@ public class Listener implements StatusListener {
      * @param max Amount of tweets that will be streamed.
      */
     public Listener(int max) {
+        this(max, Math.min(max, DEFAULT_CAPACITY), null);
+    }
+
+    /**
+     * Constructor with a given upper limit and buffer capacity, which also 
+     * records every saved tweet into a status log.
+     * 
+     * @param max Amount of tweets that will be streamed.
+     * @param capacity Amount of tweets that can wait in the buffer to be 
+     * consumed.
+     * @param recorder The recorder the saved tweets will be written to, or
+     * <code>null</code> if they shouldn't be recorded.
+     * @see StatusRecorder
+     */
+    public Listener(int max, int capacity, StatusRecorder recorder) {
         count = 0;
+        dropped = 0;
+        error = false;
         maxCount = max;
-        tweets = new LinkedList<Status>();
+        tweets = new StatusRingBuffer(capacity);
+        this.recorder = recorder;
+        done = new CountDownLatch(1);
+        if (max <= 0)
+            done.countDown();
     }
 
     /**
@@ -48,6 +82,35 @@ public class Listener implements StatusListener {
     public boolean limitHit() {
         return (count >= maxCount);
     }
+
+    /**
+     * Returns whether the buffer is full, in which case new tweets would be
+     * dropped until the consumer drains it.
+     * 
+     * @return True if the buffer is full, false otherwise.
+     */
+    public boolean isFull() {
+        return tweets.size() >= tweets.capacity();
+    }
+
+    /**
+     * Returns the amount of tweets that have been saved so far.
+     * 
+     * @return The amount of tweets saved so far.
+     */
+    public int getCount() {
+        return count;
+    }
+
+    /**
+     * Returns the amount of tweets that were dropped because the buffer was
+     * full.
+     * 
+     * @return The amount of tweets dropped so far.
+     */
+    public int getDropped() {
+        return dropped;
+    }
     
     /**
      * Returns whether an exception has occured or not.
@@ -59,34 +122,92 @@ public class Listener implements StatusListener {
     }
 
     /**
-     * If an exception occurs, prints its stack trace.
+     * Waits until the limit is hit, an unrecoverable exception occurs or the
+     * stream ends. Returns immediately if any of them has already happened.
+     * 
+     * @throws InterruptedException
+     */
+    public void awaitDone() throws InterruptedException {
+        done.await();
+    }
+
+    /**
+     * If an exception occurs, prints its stack trace. Only signals the
+     * waiting thread if the stream won't recover from it, since the stream
+     * reconnects by itself after network errors and rate limiting.
      * 
      * @param ex The exception being handled.
      */
     public void onException(Exception ex) {
         System.out.println("Exception on Listener.");
         ex.printStackTrace();	
+        error = true;
+        if (!isRecoverable(ex))
+            done.countDown();
+    }
+
+    /**
+     * Returns whether the stream reconnects by itself after an exception.
+     * 
+     * @param ex The exception the stream reported.
+     * @return False if the Streaming API refused the connection for good, true
+     * otherwise.
+     */
+    private static boolean isRecoverable(Exception ex) {
+        int code;
+        if (!(ex instanceof TwitterException))
+            return true;
+        code = ((TwitterException) ex).getStatusCode();
+        for (int unrecoverable : UNRECOVERABLE_CODES)
+            if (code == unrecoverable)
+                return false;
+        return true;
+    }
+
+    /**
+     * Signals the waiting thread that no more tweets will be streamed to this
+     * listener.
+     */
+    public void onEndOfStream() {
+        done.countDown();
     }
 
     /**
      * When a new tweet is streamed, if less tweets than the limit have been 
-     * streamed, saves the tweet.
+     * saved and there's room in the buffer, saves the tweet, and records it if
+     * a recorder was given.
      * 
      * @param arg0 The status being streamed.
      */
     public void onStatus(Status arg0) {
-        count++;
-        if (count <= maxCount)
-            tweets.add(arg0);
+        if (count < maxCount) {
+            if (!tweets.offer(arg0)) {
+                dropped++;
+                return;
+            }
+            count++;
+            if (count == maxCount)
+                done.countDown();
+            if (recorder != null) {
+                try {
+                    recorder.record(arg0);
+                } catch (IOException e) {
+                    System.out.println("Could not record status on Listener.");
+                    e.printStackTrace();
+                }
+            }
+        }
     }
 
     /**
-     * Gets the list of tweets that have been streamed so far.
+     * Moves the tweets that have been saved so far into a collection. Can be
+     * called while streaming is still going, but only from one thread.
      * 
-     * @return The list of tweets that have been streamed so far.
+     * @param sink The collection the tweets will be added to.
+     * @return The amount of tweets moved.
      */
-    public LinkedList<Status> getTweets() {
-        return tweets;
+    public int drainTo(Collection<? super Status> sink) {
+        return tweets.drainTo(sink, Integer.MAX_VALUE);
     }
 
     /** Empty onDeletionNotice to fulfill the StatusListener interface. 
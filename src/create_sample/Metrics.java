@@ -0,0 +1,325 @@
+package create_sample;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Counters, gauges and latency histograms for the phases of the sampling loop, kept once for the whole process and
+ * written in the Prometheus text format by {@link #writeTo(Writer)}. Updating a metric doesn't lock anything, so
+ * they can be updated from any thread on every call.
+ *
+ * Metrics are looked up by name and labels, given as name and value pairs. Callers on hot paths keep the metric
+ * they got instead of looking it up each time.
+ *
+ * @author José Parada
+ * @version 1.0
+ * @see MetricsServer
+ */
+public final class Metrics {
+    private static final Metrics SHARED = new Metrics();
+    private static final double NANOSECONDS_IN_A_SECOND = 1e9;
+    // Upper bounds of the histogram buckets, in seconds
+    private static final double[] BUCKETS = {0.001, 0.005, 0.01, 0.05, 0.1, 0.5, 1, 5, 10, 30, 60, 300};
+    private final LinkedHashMap<String, Family> families;
+
+    /**
+     * A counter, which only goes up.
+     */
+    public static class Counter {
+        private final AtomicLong value = new AtomicLong();
+
+        /**
+         * Adds one to the counter.
+         */
+        public void increment() {
+            value.incrementAndGet();
+        }
+
+        /**
+         * Adds an amount to the counter.
+         *
+         * @param amount The amount. Not negative.
+         */
+        public void add(long amount) {
+            value.addAndGet(amount);
+        }
+
+        /**
+         * Returns the counter's value.
+         *
+         * @return The total added so far.
+         */
+        public long get() {
+            return value.get();
+        }
+    }
+
+    /**
+     * A gauge, which is set to the current value of something.
+     */
+    public static class Gauge {
+        private final AtomicLong value = new AtomicLong();
+
+        /**
+         * Sets the gauge.
+         *
+         * @param value The current value.
+         */
+        public void set(long value) {
+            this.value.set(value);
+        }
+
+        /**
+         * Returns the gauge's value.
+         *
+         * @return The last value set.
+         */
+        public long get() {
+            return value.get();
+        }
+    }
+
+    /**
+     * A histogram of how long something took, in buckets from a millisecond to five minutes.
+     */
+    public static class Histogram {
+        private final AtomicLongArray counts = new AtomicLongArray(BUCKETS.length + 1); // Last one has no bound
+        private final AtomicLong sum = new AtomicLong(); // Nanoseconds
+
+        /**
+         * Records how long something took.
+         *
+         * @param nanoseconds The time it took.
+         */
+        public void observe(long nanoseconds) {
+            double seconds = nanoseconds / NANOSECONDS_IN_A_SECOND;
+            int bucket = 0;
+            while (bucket < BUCKETS.length && seconds > BUCKETS[bucket])
+                bucket++;
+            counts.incrementAndGet(bucket);
+            sum.addAndGet(nanoseconds);
+        }
+
+        /**
+         * Records how long something took since it started.
+         *
+         * @param started When it started, as returned by <code>System.nanoTime()</code>.
+         */
+        public void observeSince(long started) {
+            observe(System.nanoTime() - started);
+        }
+
+        /**
+         * Returns the amount of times recorded.
+         *
+         * @return The amount of observations.
+         */
+        public long getCount() {
+            long count = 0;
+            for (int i = 0; i < counts.length(); i++)
+                count += counts.get(i);
+            return count;
+        }
+    }
+
+    /**
+     * Every metric with the same name, one per set of labels.
+     */
+    private static class Family {
+        private final String name, help, type;
+        private final LinkedHashMap<String, Object> metrics; // By labels, as written
+
+        /**
+         * Constructor.
+         *
+         * @param name The metrics' name.
+         * @param help What the metrics measure.
+         * @param type "counter", "gauge" or "histogram".
+         */
+        private Family(String name, String help, String type) {
+            this.name = name;
+            this.help = help;
+            this.type = type;
+            metrics = new LinkedHashMap<String, Object>();
+        }
+    }
+
+    /**
+     * Constructor. Creates an empty registry.
+     */
+    private Metrics() {
+        families = new LinkedHashMap<String, Family>();
+    }
+
+    /**
+     * Returns the registry shared by the whole process.
+     *
+     * @return The shared registry.
+     */
+    public static Metrics getShared() {
+        return SHARED;
+    }
+
+    /**
+     * Returns a counter, creating it the first time.
+     *
+     * @param name The counter's name. Should end in _total.
+     * @param help What the counter counts.
+     * @param labels The counter's labels, as name and value pairs.
+     * @return The counter.
+     */
+    public Counter counter(String name, String help, String... labels) {
+        return (Counter)get(name, help, "counter", labels);
+    }
+
+    /**
+     * Returns a gauge, creating it the first time.
+     *
+     * @param name The gauge's name.
+     * @param help What the gauge measures.
+     * @param labels The gauge's labels, as name and value pairs.
+     * @return The gauge.
+     */
+    public Gauge gauge(String name, String help, String... labels) {
+        return (Gauge)get(name, help, "gauge", labels);
+    }
+
+    /**
+     * Returns a latency histogram, creating it the first time.
+     *
+     * @param name The histogram's name. Should end in _seconds.
+     * @param help What the histogram times.
+     * @param labels The histogram's labels, as name and value pairs.
+     * @return The histogram.
+     */
+    public Histogram histogram(String name, String help, String... labels) {
+        return (Histogram)get(name, help, "histogram", labels);
+    }
+
+    /**
+     * Writes every metric in the Prometheus text format.
+     *
+     * @param writer The writer to write to.
+     * @throws IOException
+     */
+    public void writeTo(Writer writer) throws IOException {
+        List<Family> snapshot;
+        synchronized (this) {
+            snapshot = new ArrayList<Family>(families.values());
+        }
+        for (Family family : snapshot) {
+            writer.write("# HELP " + family.name + " " + family.help + "\n");
+            writer.write("# TYPE " + family.name + " " + family.type + "\n");
+            synchronized (this) {
+                for (String labels : family.metrics.keySet())
+                    write(writer, family.name, labels, family.metrics.get(labels));
+            }
+        }
+        writer.flush();
+    }
+
+    /**
+     * Returns a metric, creating it the first time.
+     *
+     * @param name The metric's name.
+     * @param help What the metric measures.
+     * @param type "counter", "gauge" or "histogram".
+     * @param labels The metric's labels, as name and value pairs.
+     * @return The metric.
+     * @throws IllegalArgumentException If a metric with the same name has a different type.
+     */
+    private synchronized Object get(String name, String help, String type, String[] labels) {
+        Family family = families.get(name);
+        String key = formatLabels(labels);
+        Object metric;
+        if (family == null) {
+            family = new Family(name, help, type);
+            families.put(name, family);
+        } else if (!family.type.equals(type)) {
+            throw new IllegalArgumentException("Metric " + name + " is a " + family.type + ", not a " + type + ".");
+        }
+        metric = family.metrics.get(key);
+        if (metric == null) {
+            if (type.equals("counter"))
+                metric = new Counter();
+            else if (type.equals("gauge"))
+                metric = new Gauge();
+            else
+                metric = new Histogram();
+            family.metrics.put(key, metric);
+        }
+        return metric;
+    }
+
+    /**
+     * Writes the samples of a metric.
+     *
+     * @param writer The writer to write to.
+     * @param name The metric's name.
+     * @param labels The metric's labels, formatted.
+     * @param metric The metric.
+     * @throws IOException
+     */
+    private static void write(Writer writer, String name, String labels, Object metric) throws IOException {
+        Histogram histogram;
+        long cumulative = 0;
+        if (metric instanceof Counter) {
+            writer.write(name + braces(labels) + " " + ((Counter)metric).get() + "\n");
+        } else if (metric instanceof Gauge) {
+            writer.write(name + braces(labels) + " " + ((Gauge)metric).get() + "\n");
+        } else {
+            histogram = (Histogram)metric;
+            for (int i = 0; i <= BUCKETS.length; i++) {
+                cumulative += histogram.counts.get(i);
+                writer.write(name + "_bucket" + braces(join(labels, "le=\"" + (i < BUCKETS.length ?
+                        String.valueOf(BUCKETS[i]) : "+Inf") + "\"")) + " " + cumulative + "\n");
+            }
+            writer.write(name + "_sum" + braces(labels) + " " + histogram.sum.get() / NANOSECONDS_IN_A_SECOND + "\n");
+            writer.write(name + "_count" + braces(labels) + " " + cumulative + "\n");
+        }
+    }
+
+    /**
+     * Formats labels as they're written, without the braces.
+     *
+     * @param labels The labels, as name and value pairs.
+     * @return The labels, like <code>name="value",other="value"</code>.
+     */
+    private static String formatLabels(String[] labels) {
+        StringBuilder formatted = new StringBuilder();
+        for (int i = 0; i + 1 < labels.length; i += 2) {
+            if (formatted.length() > 0)
+                formatted.append(',');
+            formatted.append(labels[i]).append("=\"");
+            formatted.append(labels[i + 1].replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n"));
+            formatted.append('"');
+        }
+        return formatted.toString();
+    }
+
+    /**
+     * Joins two sets of formatted labels.
+     *
+     * @param labels Some labels, formatted.
+     * @param more More labels, formatted.
+     * @return Both sets of labels.
+     */
+    private static String join(String labels, String more) {
+        return labels.isEmpty() ? more : labels + "," + more;
+    }
+
+    /**
+     * Puts formatted labels in braces, if there are any.
+     *
+     * @param labels The labels, formatted.
+     * @return The labels in braces, or an empty string.
+     */
+    private static String braces(String labels) {
+        return labels.isEmpty() ? "" : "{" + labels + "}";
+    }
+}
@@ -0,0 +1,83 @@
+package create_sample;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * Serves the shared {@link Metrics} at <code>/metrics</code> in the Prometheus text format, on the loopback
+ * address only, from a single daemon thread.
+ *
+ * @author José Parada
+ * @version 1.0
+ * @see Metrics
+ */
+public class MetricsServer {
+    private static final String PATH = "/metrics";
+    private static final String CONTENT_TYPE = "text/plain; version=0.0.4; charset=utf-8";
+    private static final int OK = 200, METHOD_NOT_ALLOWED = 405;
+    private final HttpServer server;
+
+    /**
+     * Constructor. Starts serving right away.
+     *
+     * @param port The port to listen on.
+     * @throws IOException If the port can't be bound.
+     */
+    public MetricsServer(int port) throws IOException {
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+        server.createContext(PATH, new HttpHandler() {
+            public void handle(HttpExchange exchange) throws IOException {
+                ByteArrayOutputStream body = new ByteArrayOutputStream();
+                OutputStream out;
+                try {
+                    if (!exchange.getRequestMethod().equals("GET")) {
+                        exchange.sendResponseHeaders(METHOD_NOT_ALLOWED, -1);
+                        return;
+                    }
+                    Metrics.getShared().writeTo(new OutputStreamWriter(body, "UTF-8"));
+                    exchange.getResponseHeaders().set("Content-Type", CONTENT_TYPE);
+                    exchange.sendResponseHeaders(OK, body.size());
+                    out = exchange.getResponseBody();
+                    body.writeTo(out);
+                    out.close();
+                } finally {
+                    exchange.close();
+                }
+            }
+        });
+        server.setExecutor(Executors.newSingleThreadExecutor(new ThreadFactory() {
+            public Thread newThread(Runnable runnable) {
+                Thread thread = new Thread(runnable, "MetricsServer");
+                thread.setDaemon(true);
+                return thread;
+            }
+        }));
+        server.start();
+    }
+
+    /**
+     * Returns the port the server is listening on.
+     *
+     * @return The port.
+     */
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    /**
+     * Stops serving.
+     */
+    public void stop() {
+        server.stop(0);
+    }
+}
@@ -0,0 +1,167 @@
+package create_sample;
+
+import java.io.BufferedInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectStreamClass;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * Converts monitors saved with Java serialization, the old .ser files, to monitor files that a
+ * {@link MonitorReader} can read. Each file given is written next to it with the .mon extension.
+ *
+ * The .ser files were written by the first version of {@link MonitoredStatus}, which Java serialization can't read
+ * into the current one, so its tweets are read as {@link LegacyMonitoredStatus} and converted. Files written by the
+ * current version are read as they are. Each converted file is read back and checked against the tweets converted
+ * before the conversion is reported.
+ *
+ * Usage: <code>java create_sample.MonitorConverter MonitorFinal.ser DeadMonitorFinal.ser ...</code>
+ *
+ * @author José Parada
+ * @version 1.0
+ * @see MonitorWriter
+ */
+public class MonitorConverter {
+    private static final String OLD_EXTENSION = ".ser";
+    private static final String NEW_EXTENSION = ".mon";
+
+    /**
+     * Converts every file given in the arguments.
+     *
+     * @param args The .ser files to convert.
+     * @throws ClassNotFoundException
+     * @throws IOException
+     */
+    public static void main(String[] args) throws ClassNotFoundException, IOException {
+        File converted;
+        int tweets;
+        if (args.length == 0) {
+            System.out.println("Usage: java create_sample.MonitorConverter file.ser ...");
+            return;
+        }
+        for (String path : args) {
+            converted = convertedFile(new File(path));
+            try {
+                tweets = convert(new File(path), converted);
+            } catch (ClassNotFoundException e) {
+                System.out.println("Fatal: " + path + " doesn't contain a monitor.");
+                throw e;
+            } catch (IOException e) {
+                System.out.println("Fatal: Could not convert " + path + ".");
+                throw e;
+            }
+            System.out.println("Converted " + tweets + " statuses from " + path + " to " + converted + ".");
+        }
+    }
+
+    /**
+     * Converts a monitor saved with Java serialization to a monitor file.
+     *
+     * @param serialized The .ser file, with a collection of monitored tweets.
+     * @param converted The monitor file to write.
+     * @return The amount of tweets converted.
+     * @throws ClassNotFoundException If the file doesn't contain a collection of monitored tweets.
+     * @throws IOException
+     */
+    public static int convert(File serialized, File converted) throws ClassNotFoundException, IOException {
+        ObjectInputStream input = new LegacyInputStream(new BufferedInputStream(new FileInputStream(serialized)));
+        List<MonitoredStatus> monitor = new ArrayList<MonitoredStatus>();
+        Object read;
+        try {
+            read = input.readObject();
+        } finally {
+            input.close();
+        }
+        if (!(read instanceof Collection))
+            throw new ClassNotFoundException("Method: convert. " + serialized + " doesn't contain a collection.");
+        for (Object tweet : (Collection<?>)read) { // Monitors were saved as a HashSet or LinkedList of MonitoredStatus
+            if (tweet instanceof LegacyMonitoredStatus)
+                monitor.add(((LegacyMonitoredStatus)tweet).toMonitoredStatus());
+            else if (tweet instanceof MonitoredStatus)
+                monitor.add((MonitoredStatus)tweet);
+            else
+                throw new ClassNotFoundException("Method: convert. " + serialized + " doesn't contain a monitor.");
+        }
+        MonitorWriter.writeAll(monitor, converted);
+        check(monitor, converted);
+        return monitor.size();
+    }
+
+    /**
+     * Reads a converted monitor file back and checks it has the same tweets, in the same order and with the same
+     * history, as the ones converted.
+     *
+     * @param monitor The converted tweets.
+     * @param converted The monitor file they were written to.
+     * @throws IOException If the file can't be read or doesn't match.
+     */
+    private static void check(List<MonitoredStatus> monitor, File converted) throws IOException {
+        Iterator<MonitoredStatus> written = monitor.iterator();
+        MonitoredStatus expected;
+        for (MonitoredStatus tweet : MonitorReader.readAll(converted)) {
+            if (!written.hasNext())
+                throw new IOException("Method: check. " + converted + " has more statuses than were converted.");
+            expected = written.next();
+            if (tweet.getId() != expected.getId() || tweet.getFlags() != expected.getFlags()
+                    || tweet.getRetweetCount().size() != expected.getRetweetCount().size()
+                    || tweet.getRetweeters().size() != expected.getRetweeters().size()
+                    || tweet.getInactivePeriods() != expected.getInactivePeriods())
+                throw new IOException("Method: check. Status " + expected.getId() + " doesn't match in " + converted + ".");
+        }
+        if (written.hasNext())
+            throw new IOException("Method: check. " + converted + " is missing statuses.");
+    }
+
+    /**
+     * Reads serialized monitors, reading tweets serialized by the first version of {@link MonitoredStatus} as
+     * {@link LegacyMonitoredStatus}.
+     */
+    private static class LegacyInputStream extends ObjectInputStream {
+
+        /**
+         * Constructor.
+         *
+         * @param in The stream with the serialized monitor.
+         * @throws IOException
+         */
+        private LegacyInputStream(InputStream in) throws IOException {
+            super(in);
+        }
+
+        /**
+         * Reads a class descriptor, and swaps the first version of {@link MonitoredStatus} for
+         * {@link LegacyMonitoredStatus}, which has the same fields.
+         *
+         * @return The class descriptor objects are read with.
+         * @throws IOException
+         * @throws ClassNotFoundException
+         */
+        @Override
+        protected ObjectStreamClass readClassDescriptor() throws IOException, ClassNotFoundException {
+            ObjectStreamClass read = super.readClassDescriptor();
+            if (read.getName().equals(MonitoredStatus.class.getName())
+                    && read.getSerialVersionUID() == LegacyMonitoredStatus.serialVersionUID)
+                return ObjectStreamClass.lookup(LegacyMonitoredStatus.class);
+            return read;
+        }
+    }
+
+    /**
+     * Returns the monitor file a .ser file is converted to.
+     *
+     * @param serialized The .ser file.
+     * @return A file with the same name and the .mon extension.
+     */
+    private static File convertedFile(File serialized) {
+        String name = serialized.getName();
+        if (name.endsWith(OLD_EXTENSION))
+            name = name.substring(0, name.length() - OLD_EXTENSION.length());
+        return new File(serialized.getParentFile(), name + NEW_EXTENSION);
+    }
+}
@@ -0,0 +1,479 @@
+package create_sample;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Set;
+import java.util.zip.CRC32;
+
+/**
+ * Keeps the monitors' progress on disk as a snapshot plus a journal of what changed since. Each cycle only appends
+ * its changes to the journal: the tweets added, the observations made and when, the tweets that died or were
+ * deleted, and the amount of cycles done, so a run that picks up where another left off knows how far it had got.
+ * Once the journal grows bigger than the snapshot, a new snapshot is written and the journal starts over, so saving
+ * costs about the same as what changed, not everything ever collected.
+ *
+ * Each cycle's changes are appended as one block, with its length and checksum, and synced to disk before the cycle
+ * is considered saved. A block that was cut short by a crash is dropped when the journal is read. Replaying a change
+ * that's already in the snapshot does nothing, so a crash while compacting doesn't apply anything twice.
+ *
+ * The snapshot is a monitor file with both monitors. Tweets that have been inactive for long enough to die go back
+ * to the dead monitor when it's read.
+ *
+ * @author José Parada
+ * @version 1.0
+ * @see MonitorWriter
+ * @see MonitorReader
+ */
+public class MonitorJournal {
+    private static final int MAGIC = 0x4D4F4E4A; // "MONJ"
+    private static final short VERSION = 1;
+    private static final byte ADD = 1, OBSERVE = 2, DIE = 3, REMOVE = 4, CYCLE = 5; // Types of change
+    private static final int HEADER_LENGTH = 6; // Magic number and version
+    private static final int BLOCK_OVERHEAD = 12; // Length and checksum before each block
+    private static final String TEMPORARY_SUFFIX = ".tmp";
+    private final File snapshot, journal;
+    private final int periodsToDie;
+    private final ByteArrayOutputStream cycle; // Changes made in the current cycle
+    private final DataOutputStream changes;
+    private FileOutputStream output;
+    private long journalLength;
+    private int changeCount, cyclesDone;
+
+    /**
+     * Constructor. Doesn't touch the files until {@link #recover(Set, Set)} is called.
+     *
+     * @param snapshot The file with the last snapshot of the monitors.
+     * @param journal The file with the changes made since the last snapshot.
+     * @param periodsToDie Inactive periods after which a tweet is considered dead.
+     */
+    public MonitorJournal(File snapshot, File journal, int periodsToDie) {
+        this.snapshot = snapshot;
+        this.journal = journal;
+        this.periodsToDie = periodsToDie;
+        cycle = new ByteArrayOutputStream();
+        changes = new DataOutputStream(cycle);
+        changeCount = 0;
+        cyclesDone = 0;
+    }
+
+    /**
+     * Rebuilds the monitors from the last snapshot and the journal, and opens the journal to append to. Any block
+     * the journal ends with that was cut short is removed.
+     *
+     * @param monitor The set the tweets that are still getting retweets are added to.
+     * @param dead The set the tweets that are no longer getting retweets are added to.
+     * @return The amount of cycles replayed from the journal.
+     * @throws IOException
+     */
+    public int recover(Set<MonitoredStatus> monitor, Set<MonitoredStatus> dead) throws IOException {
+        HashMap<Long, MonitoredStatus> alive = new HashMap<Long, MonitoredStatus>(), gone = new HashMap<Long, MonitoredStatus>();
+        MonitorReader reader;
+        MonitoredStatus tweet;
+        int cycles = 0;
+        if (snapshot.exists()) {
+            reader = new MonitorReader(snapshot);
+            try {
+                while ((tweet = reader.read()) != null)
+                    place(tweet, alive, gone);
+            } finally {
+                reader.close();
+            }
+        }
+        journalLength = 0;
+        if (journal.exists())
+            cycles = replay(alive, gone);
+        if (journalLength == 0) {
+            startJournal();
+        } else {
+            output = new FileOutputStream(journal, true);
+            output.getChannel().truncate(journalLength);
+        }
+        monitor.addAll(alive.values());
+        dead.addAll(gone.values());
+        return cycles;
+    }
+
+    /**
+     * Records a tweet that started being monitored.
+     *
+     * @param tweet The new monitored tweet.
+     * @throws IOException
+     */
+    public void added(MonitoredStatus tweet) throws IOException {
+        changes.writeByte(ADD);
+        MonitorWriter.writeStatus(changes, tweet);
+        changeCount++;
+    }
+
+    /**
+     * Records an observation of a tweet. Has to be called before the observation is added to the tweet.
+     *
+     * @param tweet The monitored tweet.
+     * @param retweeters The registry indexes of the tweet's new retweeters.
+     * @param retweetCount The number of retweets observed.
+     * @param retweetLikelihood The retweet likelihood observed.
+     * @param periods The periods since the tweet's last observation.
+     * @param time The time of the observation, in epoch milliseconds.
+     * @throws IOException
+     * @see MonitoredStatus#addObservation(int, double, int)
+     */
+    public void observed(MonitoredStatus tweet, int[] retweeters, int retweetCount, double retweetLikelihood,
+            int periods, long time) throws IOException {
+        UserRegistry registry = UserRegistry.getShared();
+        changes.writeByte(OBSERVE);
+        changes.writeLong(tweet.getId());
+        changes.writeInt(tweet.getRetweetCount().size()); // Tells whether the observation is already in a snapshot
+        changes.writeInt(retweetCount);
+        changes.writeDouble(retweetLikelihood);
+        changes.writeInt(periods);
+        changes.writeLong(time);
+        changes.writeInt(retweeters.length);
+        for (int index : retweeters) {
+            changes.writeLong(registry.getId(index));
+            changes.writeInt(registry.getFollowers(index));
+        }
+        changeCount++;
+    }
+
+    /**
+     * Records a tweet that stopped getting retweets.
+     *
+     * @param tweet The tweet that moved to the dead monitor.
+     * @throws IOException
+     */
+    public void died(MonitoredStatus tweet) throws IOException {
+        changes.writeByte(DIE);
+        changes.writeLong(tweet.getId());
+        changeCount++;
+    }
+
+    /**
+     * Records a tweet that was deleted, and isn't monitored anymore.
+     *
+     * @param tweet The deleted tweet.
+     * @throws IOException
+     */
+    public void removed(MonitoredStatus tweet) throws IOException {
+        changes.writeByte(REMOVE);
+        changes.writeLong(tweet.getId());
+        changeCount++;
+    }
+
+    /**
+     * Records that a sampling cycle is done.
+     *
+     * @param cycles The amount of cycles done so far, this one included.
+     * @throws IOException
+     */
+    public void cycleDone(int cycles) throws IOException {
+        changes.writeByte(CYCLE);
+        changes.writeInt(cycles);
+        changeCount++;
+    }
+
+    /**
+     * Returns the amount of sampling cycles done, as last recorded in the journal that was recovered.
+     *
+     * @return The amount of cycles done, 0 if there's none recorded.
+     * @see #cycleDone(int)
+     */
+    public int getCyclesDone() {
+        return cyclesDone;
+    }
+
+    /**
+     * Appends the changes made in this cycle to the journal and syncs it to disk. If the journal has grown bigger
+     * than the snapshot, writes a new snapshot of the monitors instead and starts the journal over.
+     *
+     * @param monitor A set of monitored tweets that are still getting retweets.
+     * @param dead A set of monitored tweets that are no longer getting retweets.
+     * @return True if a new snapshot was written, false if the changes were appended.
+     * @throws IOException
+     * @see #seal()
+     * @see #write(byte[], Collection, Collection)
+     */
+    public boolean commit(Collection<MonitoredStatus> monitor, Collection<MonitoredStatus> dead) throws IOException {
+        return write(seal(), monitor, dead);
+    }
+
+    /**
+     * Ends the current cycle, and returns its changes to be written later. The changes of several cycles can be
+     * joined together and written as one.
+     *
+     * @return The changes made since the last cycle ended.
+     * @throws IOException
+     */
+    public byte[] seal() throws IOException {
+        byte[] bytes;
+        changes.flush();
+        bytes = cycle.toByteArray();
+        cycle.reset();
+        changeCount = 0;
+        return bytes;
+    }
+
+    /**
+     * Appends sealed changes to the journal and syncs it to disk. If the journal has grown bigger than the snapshot,
+     * writes a new snapshot of the monitors first and starts the journal over with these changes. The snapshot already
+     * has them, so replaying them does nothing but keep the amount of cycles done. Can be called from a different
+     * thread than the one recording the changes, as long as it's only ever called from one.
+     *
+     * @param bytes The changes returned by {@link #seal()}.
+     * @param monitor The monitored tweets that are still getting retweets, with the changes made.
+     * @param dead The monitored tweets that are no longer getting retweets, with the changes made.
+     * @return True if a new snapshot was written, false if the changes were only appended.
+     * @throws IOException
+     */
+    public boolean write(byte[] bytes, Collection<MonitoredStatus> monitor, Collection<MonitoredStatus> dead) 
+            throws IOException {
+        ByteArrayOutputStream block;
+        DataOutputStream header;
+        CRC32 checksum = new CRC32();
+        boolean compacted = false;
+        if (journalLength + bytes.length > Math.max(snapshot.length(), 1)) {
+            compact(monitor, dead);
+            compacted = true;
+        }
+        checksum.update(bytes);
+        block = new ByteArrayOutputStream(bytes.length + BLOCK_OVERHEAD);
+        header = new DataOutputStream(block);
+        header.writeInt(bytes.length);
+        header.writeLong(checksum.getValue());
+        header.write(bytes);
+        header.flush();
+        output.write(block.toByteArray()); // One write, so a crash leaves at most one block cut short
+        output.getFD().sync();
+        journalLength += bytes.length + BLOCK_OVERHEAD;
+        return compacted;
+    }
+
+    /**
+     * Returns the amount of changes made in this cycle that haven't been committed yet.
+     *
+     * @return The amount of changes waiting for {@link #seal()}.
+     */
+    public int getPending() {
+        return changeCount;
+    }
+
+    /**
+     * Writes a new snapshot of the monitors and starts the journal over.
+     *
+     * @param monitor A set of monitored tweets that are still getting retweets.
+     * @param dead A set of monitored tweets that are no longer getting retweets.
+     * @throws IOException
+     */
+    public void compact(Collection<MonitoredStatus> monitor, Collection<MonitoredStatus> dead) throws IOException {
+        File temporary = new File(snapshot.getPath() + TEMPORARY_SUFFIX);
+        MonitorWriter writer = new MonitorWriter(temporary);
+        boolean complete = false;
+        try {
+            for (MonitoredStatus tweet : monitor)
+                writer.write(tweet);
+            for (MonitoredStatus tweet : dead)
+                writer.write(tweet);
+            writer.close();
+            complete = true;
+        } finally {
+            if (!complete)
+                writer.abort();
+        }
+        sync(temporary);
+        Files.move(temporary.toPath(), snapshot.toPath(), StandardCopyOption.REPLACE_EXISTING,
+                StandardCopyOption.ATOMIC_MOVE);
+        if (output != null)
+            output.close();
+        startJournal();
+    }
+
+    /**
+     * Closes the journal. Changes that weren't committed are lost.
+     *
+     * @throws IOException
+     */
+    public void close() throws IOException {
+        if (output != null)
+            output.close();
+        output = null;
+    }
+
+    /**
+     * Closes the journal and deletes it along with the snapshot, once the monitors have been saved somewhere else, so
+     * the next run starts from scratch.
+     *
+     * @throws IOException
+     */
+    public void delete() throws IOException {
+        close();
+        Files.deleteIfExists(journal.toPath());
+        Files.deleteIfExists(snapshot.toPath());
+    }
+
+    /**
+     * Applies the complete blocks in the journal to the monitors. Leaves <code>journalLength</code> at the end of
+     * the last complete block, or at 0 if the journal's header is missing.
+     *
+     * @param alive The tweets that are still getting retweets, by ID.
+     * @param gone The tweets that are no longer getting retweets, by ID.
+     * @return The amount of blocks applied.
+     * @throws IOException If the journal isn't a journal of a version we can read.
+     */
+    private int replay(HashMap<Long, MonitoredStatus> alive, HashMap<Long, MonitoredStatus> gone) throws IOException {
+        DataInputStream input = new DataInputStream(new BufferedInputStream(new FileInputStream(journal)));
+        CRC32 checksum = new CRC32();
+        byte[] bytes;
+        long expected;
+        int length, cycles = 0;
+        try {
+            try {
+                if (input.readInt() != MAGIC)
+                    throw new IOException("Not a monitor journal: " + journal);
+                if (input.readShort() != VERSION)
+                    throw new IOException("Unknown monitor journal version: " + journal);
+            } catch (EOFException e) { // Crashed while starting the journal
+                return 0;
+            }
+            journalLength = HEADER_LENGTH;
+            while (true) {
+                try {
+                    length = input.readInt();
+                    expected = input.readLong();
+                    bytes = new byte[length];
+                    input.readFully(bytes);
+                } catch (EOFException e) { // The last block was cut short
+                    break;
+                }
+                checksum.reset();
+                checksum.update(bytes);
+                if (checksum.getValue() != expected) {
+                    System.out.println("Method: replay. Dropping a corrupt block at the end of the journal.");
+                    break;
+                }
+                apply(new DataInputStream(new ByteArrayInputStream(bytes)), alive, gone);
+                journalLength += length + BLOCK_OVERHEAD;
+                cycles++;
+            }
+        } finally {
+            input.close();
+        }
+        return cycles;
+    }
+
+    /**
+     * Applies a block's changes to the monitors. Changes that are already in them are skipped.
+     *
+     * @param in The block's changes.
+     * @param alive The tweets that are still getting retweets, by ID.
+     * @param gone The tweets that are no longer getting retweets, by ID.
+     * @throws IOException
+     */
+    private void apply(DataInputStream in, HashMap<Long, MonitoredStatus> alive, HashMap<Long, MonitoredStatus> gone)
+            throws IOException {
+        UserRegistry registry = UserRegistry.getShared();
+        List<Integer> retweeters = new ArrayList<Integer>();
+        MonitoredStatus tweet;
+        long id, time, retweeter;
+        int sizeBefore, retweetCount, periods, count;
+        double retweetLikelihood;
+        byte type;
+        while (in.available() > 0) {
+            type = in.readByte();
+            if (type == ADD) {
+                tweet = MonitorReader.readStatus(in);
+                if (!alive.containsKey(tweet.getId()) && !gone.containsKey(tweet.getId()))
+                    place(tweet, alive, gone);
+            } else if (type == OBSERVE) {
+                id = in.readLong();
+                sizeBefore = in.readInt();
+                retweetCount = in.readInt();
+                retweetLikelihood = in.readDouble();
+                periods = in.readInt();
+                time = in.readLong();
+                count = in.readInt();
+                retweeters.clear();
+                for (int i = 0; i < count; i++) {
+                    retweeter = in.readLong();
+                    retweeters.add(registry.intern(retweeter, in.readInt(), 0));
+                }
+                tweet = alive.get(id);
+                if (tweet != null && tweet.getRetweetCount().size() == sizeBefore) {
+                    for (int index : retweeters)
+                        tweet.getRetweeters().add(index);
+                    tweet.addObservation(retweetCount, retweetLikelihood, periods, time);
+                }
+            } else if (type == DIE) {
+                tweet = alive.remove(in.readLong());
+                if (tweet != null)
+                    gone.put(tweet.getId(), tweet);
+            } else if (type == REMOVE) {
+                alive.remove(in.readLong());
+            } else if (type == CYCLE) {
+                cyclesDone = in.readInt();
+            } else {
+                throw new IOException("Corrupt monitor journal, unknown change type: " + type);
+            }
+        }
+    }
+
+    /**
+     * Puts a tweet read from the snapshot in the monitor it belongs to.
+     *
+     * @param tweet The monitored tweet.
+     * @param alive The tweets that are still getting retweets, by ID.
+     * @param gone The tweets that are no longer getting retweets, by ID.
+     */
+    private void place(MonitoredStatus tweet, HashMap<Long, MonitoredStatus> alive, HashMap<Long, MonitoredStatus> gone) {
+        if (tweet.getInactivePeriods() >= periodsToDie)
+            gone.put(tweet.getId(), tweet);
+        else
+            alive.put(tweet.getId(), tweet);
+    }
+
+    /**
+     * Replaces the journal with an empty one, and opens it to append to.
+     *
+     * @throws IOException
+     */
+    private void startJournal() throws IOException {
+        File temporary = new File(journal.getPath() + TEMPORARY_SUFFIX);
+        DataOutputStream header = new DataOutputStream(new FileOutputStream(temporary));
+        header.writeInt(MAGIC);
+        header.writeShort(VERSION);
+        header.close();
+        sync(temporary);
+        Files.move(temporary.toPath(), journal.toPath(), StandardCopyOption.REPLACE_EXISTING,
+                StandardCopyOption.ATOMIC_MOVE);
+        output = new FileOutputStream(journal, true);
+        journalLength = HEADER_LENGTH;
+    }
+
+    /**
+     * Syncs a file that was just written to disk.
+     *
+     * @param file The file.
+     * @throws IOException
+     */
+    private static void sync(File file) throws IOException {
+        RandomAccessFile handle = new RandomAccessFile(file, "rw");
+        try {
+            handle.getFD().sync();
+        } finally {
+            handle.close();
+        }
+    }
+}
@@ -0,0 +1,150 @@
+package create_sample;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.LinkedList;
+
+/**
+ * Reads the monitored tweets in a monitor file written by a {@link MonitorWriter}, one at a time. The retweeters are
+ * added to the shared {@link UserRegistry}, without replacing follower counts it already has.
+ *
+ * @author José Parada
+ * @version 1.0
+ * @see MonitorWriter
+ */
+public class MonitorReader {
+    private static final String CHARSET = "UTF-8";
+    private DataInputStream input;
+    private boolean ended;
+
+    /**
+     * Constructor. Opens a monitor file and checks its header.
+     *
+     * @param file The monitor file.
+     * @throws IOException If the file can't be read, or isn't a monitor file of a version we can read.
+     */
+    public MonitorReader(File file) throws IOException {
+        this(new FileInputStream(file));
+    }
+
+    /**
+     * Constructor. Reads a monitor from a stream, which is closed along with the reader.
+     *
+     * @param in The stream with the monitor.
+     * @throws IOException If the stream can't be read, or doesn't have a monitor of a version we can read.
+     */
+    public MonitorReader(InputStream in) throws IOException {
+        short version;
+        input = new DataInputStream(new BufferedInputStream(in));
+        if (input.readInt() != MonitorWriter.MAGIC) {
+            input.close();
+            throw new IOException("Not a monitor file.");
+        }
+        version = input.readShort();
+        if (version != MonitorWriter.VERSION) {
+            input.close();
+            throw new IOException("Unknown monitor file version: " + version);
+        }
+        ended = false;
+    }
+
+    /**
+     * Reads every tweet in a monitor file.
+     *
+     * @param file The monitor file.
+     * @return The monitored tweets, in the order they were written.
+     * @throws IOException
+     */
+    public static LinkedList<MonitoredStatus> readAll(File file) throws IOException {
+        LinkedList<MonitoredStatus> monitor = new LinkedList<MonitoredStatus>();
+        MonitorReader reader = new MonitorReader(file);
+        MonitoredStatus tweet;
+        try {
+            while ((tweet = reader.read()) != null)
+                monitor.add(tweet);
+        } finally {
+            reader.close();
+        }
+        return monitor;
+    }
+
+    /**
+     * Reads the next tweet.
+     *
+     * @return The next monitored tweet, or <code>null</code> once the end of the monitor has been reached.
+     * @throws EOFException If the file ends before the end of the monitor, because it was cut short.
+     * @throws IOException
+     */
+    public MonitoredStatus read() throws IOException {
+        byte tag;
+        if (ended)
+            return null;
+        tag = input.readByte();
+        if (tag == MonitorWriter.END) {
+            ended = true;
+            return null;
+        }
+        if (tag != MonitorWriter.RECORD)
+            throw new IOException("Corrupt monitor file, unknown record type: " + tag);
+        return readStatus(input);
+    }
+
+    /**
+     * Closes the monitor file.
+     *
+     * @throws IOException
+     */
+    public void close() throws IOException {
+        input.close();
+    }
+
+    /**
+     * Reads a tweet's record, without the <code>RECORD</code> byte.
+     *
+     * @param in The stream to read from.
+     * @return The monitored tweet.
+     * @throws IOException
+     */
+    static MonitoredStatus readStatus(DataInputStream in) throws IOException {
+        UserRegistry registry = UserRegistry.getShared();
+        IntSeries counts = new IntSeries();
+        DoubleSeries likelihoods = new DoubleSeries();
+        RetweeterSet retweeters = new RetweeterSet();
+        long id = in.readLong(), tweetCreated, startedMonitoring, lastObserved, retweeter;
+        int textLength = in.readInt(), followerNumber, treeDepth, inactivePeriods, count;
+        byte flags, sentiment, topic;
+        byte[] text = null;
+        if (textLength >= 0) {
+            text = new byte[textLength];
+            in.readFully(text);
+        }
+        tweetCreated = in.readLong();
+        startedMonitoring = in.readLong();
+        lastObserved = in.readLong();
+        flags = in.readByte();
+        sentiment = in.readByte();
+        topic = in.readByte();
+        followerNumber = in.readInt();
+        treeDepth = in.readInt();
+        inactivePeriods = in.readInt();
+        count = in.readInt();
+        for (int i = 0; i < count; i++)
+            counts.add(in.readInt());
+        count = in.readInt();
+        for (int i = 0; i < count; i++)
+            likelihoods.add(in.readDouble());
+        count = in.readInt();
+        for (int i = 0; i < count; i++) {
+            retweeter = in.readLong();
+            retweeters.add(registry.intern(retweeter, in.readInt(), 0));
+        }
+        return new MonitoredStatus(id, text == null ? null : new String(text, CHARSET), tweetCreated,
+                startedMonitoring, lastObserved, flags, sentiment, topic, followerNumber, treeDepth, inactivePeriods,
+                counts, likelihoods, retweeters);
+    }
+}
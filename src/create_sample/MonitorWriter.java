@@ -0,0 +1,179 @@
+package create_sample;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+
+/**
+ * Writes monitored tweets to a monitor file one at a time, in a binary format that a {@link MonitorReader} reads
+ * back. Only the tweets' own values are written, so the files don't change when the classes do, and writing one
+ * doesn't walk an object graph.
+ *
+ * A monitor file starts with a magic number and the format version, followed by one record per tweet, each
+ * preceded by a <code>RECORD</code> byte, and ends with an <code>END</code> byte, so a file that was cut short can
+ * be told apart from a complete one. Each record is:
+ * <ul>
+ * <li>ID, long
+ * <li>Text, as an int with its length in UTF-8 bytes, -1 if there's none, and the bytes
+ * <li>Time it was posted, time we started monitoring it and time it was last observed, epoch milliseconds as longs
+ * <li>Flags, sentiment code and topic code, a byte each
+ * <li>Author's followers, diffusion tree depth and inactive periods, an int each
+ * <li>Retweet counts, as an int with the amount and an int each
+ * <li>Retweet likelihoods, as an int with the amount and a double each
+ * <li>Retweeters, as an int with the amount and a long ID and int follower count each
+ * </ul>
+ *
+ * @author José Parada
+ * @version 1.0
+ * @see MonitorReader
+ */
+public class MonitorWriter {
+    static final int MAGIC = 0x4D4F4E53; // "MONS"
+    static final short VERSION = 1; // Goes up one each time the record layout changes
+    static final byte RECORD = 1, END = 0;
+    private static final String CHARSET = "UTF-8";
+    private static final String TEMPORARY_SUFFIX = ".tmp";
+    private DataOutputStream output;
+    private int written;
+
+    /**
+     * Constructor. Creates a monitor file, replacing any previous file with the same name.
+     *
+     * @param file The file the tweets will be written to.
+     * @throws IOException
+     */
+    public MonitorWriter(File file) throws IOException {
+        this(new FileOutputStream(file));
+    }
+
+    /**
+     * Constructor. Writes the monitor to a stream, which is closed along with the writer.
+     *
+     * @param out The stream the tweets will be written to.
+     * @throws IOException
+     */
+    public MonitorWriter(OutputStream out) throws IOException {
+        output = new DataOutputStream(new BufferedOutputStream(out));
+        output.writeInt(MAGIC);
+        output.writeShort(VERSION);
+        written = 0;
+    }
+
+    /**
+     * Writes every tweet in a monitor to a monitor file. The tweets are written to a temporary file first, which then
+     * replaces the file, so a write that fails partway leaves the previous file as it was.
+     *
+     * @param monitor The monitored tweets.
+     * @param file The file the tweets will be written to.
+     * @throws IOException
+     */
+    public static void writeAll(Iterable<MonitoredStatus> monitor, File file) throws IOException {
+        File temporary = new File(file.getPath() + TEMPORARY_SUFFIX);
+        MonitorWriter writer = new MonitorWriter(temporary);
+        boolean complete = false;
+        try {
+            for (MonitoredStatus tweet : monitor)
+                writer.write(tweet);
+            writer.close();
+            complete = true;
+        } finally {
+            if (!complete) {
+                writer.abort();
+                Files.deleteIfExists(temporary.toPath());
+            }
+        }
+        Files.move(temporary.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING,
+                StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Appends a tweet to the monitor file.
+     *
+     * @param tweet The monitored tweet.
+     * @throws IOException
+     */
+    public void write(MonitoredStatus tweet) throws IOException {
+        output.writeByte(RECORD);
+        writeStatus(output, tweet);
+        written++;
+    }
+
+    /**
+     * Returns the amount of tweets written so far.
+     *
+     * @return The amount of records in the file.
+     */
+    public int getWritten() {
+        return written;
+    }
+
+    /**
+     * Marks the end of the monitor file and closes it.
+     *
+     * @throws IOException
+     */
+    public void close() throws IOException {
+        output.writeByte(END);
+        output.close();
+    }
+
+    /**
+     * Closes the monitor file without marking its end, after a write failed, so it reads as cut short. Doesn't throw,
+     * so it can be called while another exception is on its way up.
+     */
+    public void abort() {
+        try {
+            output.close();
+        } catch (IOException e) {
+            // The file is incomplete either way
+        }
+    }
+
+    /**
+     * Writes a tweet's record, without the <code>RECORD</code> byte.
+     *
+     * @param out The stream to write to.
+     * @param tweet The monitored tweet.
+     * @throws IOException
+     */
+    static void writeStatus(DataOutputStream out, MonitoredStatus tweet) throws IOException {
+        IntSeries counts = tweet.getRetweetCount();
+        DoubleSeries likelihoods = tweet.getRetweetLikelihood();
+        long[] retweeters = tweet.getRetweeters().getIds();
+        int[] followers = tweet.getRetweeters().getFollowerCounts();
+        byte[] text;
+        out.writeLong(tweet.getId());
+        if (tweet.getText() == null) {
+            out.writeInt(-1);
+        } else {
+            text = tweet.getText().getBytes(CHARSET);
+            out.writeInt(text.length);
+            out.write(text);
+        }
+        out.writeLong(tweet.getTweetCreatedMillis());
+        out.writeLong(tweet.getStartedMonitoringMillis());
+        out.writeLong(tweet.getLastObservedMillis());
+        out.writeByte(tweet.getFlags());
+        out.writeByte(tweet.getSentimentCode());
+        out.writeByte(tweet.getTopicCode());
+        out.writeInt(tweet.getFollowerNumber());
+        out.writeInt(tweet.getTreeDepth());
+        out.writeInt(tweet.getInactivePeriods());
+        out.writeInt(counts.size());
+        for (int i = 0; i < counts.size(); i++)
+            out.writeInt(counts.get(i));
+        out.writeInt(likelihoods.size());
+        for (int i = 0; i < likelihoods.size(); i++)
+            out.writeDouble(likelihoods.get(i));
+        out.writeInt(retweeters.length);
+        for (int i = 0; i < retweeters.length; i++) {
+            out.writeLong(retweeters[i]);
+            out.writeInt(followers[i]);
+        }
+    }
+}
@@ -7,32 +7,34 @@ import java.io.IOException;
 import java.io.PrintWriter;
 import java.io.Serializable;
 import java.util.Date;
-import java.util.HashSet;
-import java.util.LinkedList;
-
-import twitter4j.User;
 
 /**
  * Represents a tweet we're monitoring or have monitored.
  * 
+ * Many of these are kept for offline analysis, so the characteristics are packed: the yes or no ones share a byte
+ * of flags, dates are kept as epoch milliseconds, and the sentiment and topic as their codes in
+ * {@link SentimentClassifier} and {@link TopicClassifier}. The getters still return them unpacked.
+ * 
  * @author José Parada
  * @version 1.0
  * @serial Starts at <code>1L</code>, will go up one each time this class is modified.
  */
 public class MonitoredStatus implements Serializable {
-    private static final long serialVersionUID = 1L;
+    private static final long serialVersionUID = 6L;
+    private static final long NO_DATE = Long.MIN_VALUE; // Stands for a null date
+    static final long PERIOD = 900000; // Milliseconds between observations
+    private static final int DIRECT = 1, MENTION = 1 << 1, HASHTAG = 1 << 2, URL = 1 << 3, EXCLAMATION = 1 << 4, 
+            QUESTION = 1 << 5, POSITIVE_EMOTICON = 1 << 6, NEGATIVE_EMOTICON = 1 << 7; // Bits of flags
     private long id;
-    private String text, sentiment, topic;
-    private Date tweetCreated;
-    private Date startedMonitoring;
-    private LinkedList<Integer> retweetCount;
-    private HashSet<User> retweeters;
-    private LinkedList<Double> retweetLikelihood;
-    private LinkedList<Double> combined; // Retweet likelihood * retweetCount;
+    private String text;
+    private long tweetCreated, startedMonitoring, lastObserved; // Epoch milliseconds
+    private byte sentiment, topic; // Codes in SentimentClassifier and TopicClassifier, -1 if there's none
+    private byte flags;
+    private IntSeries retweetCount;
+    private RetweeterSet retweeters;
+    private DoubleSeries retweetLikelihood; // Combined is retweet likelihood * retweetCount, worked out when read
     private int treeDepth; // Depth of the diffusion tree
     private int inactivePeriods, authorFollowerNumber;
-    private boolean isDirect, hasMention, hasHashtag, hasURL, isExclamation, isQuestion, hasPositiveEmoticon, 
-    hasNegativeEmoticon;
 
     /**
      * Constructor. Initializes a new tweet to be monitored with its observed values.
@@ -62,25 +64,76 @@ public class MonitoredStatus implements Serializable {
             boolean hasNegativeEmoticon, int followerNumber, String sentiment, String topic) {
         this.id = id;
         this.text = text;
-        this.tweetCreated = tweetCreated;
-        startedMonitoring = new Date();
-        retweetCount = new LinkedList<Integer>();
-        retweetLikelihood = new LinkedList<Double>();
-        combined = new LinkedList<Double>();
+        this.tweetCreated = toMillis(tweetCreated);
+        startedMonitoring = System.currentTimeMillis();
+        lastObserved = startedMonitoring;
+        retweetCount = new IntSeries();
+        retweetLikelihood = new DoubleSeries();
         inactivePeriods = 0;
-        this.isDirect = isDirect;
-        this.hasMention = isMention;
-        this.hasHashtag = isHashtag;
-        this.hasURL = isURL;
-        this.isExclamation = isExclamation;
-        this.isQuestion = isQuestion;
-        this.hasPositiveEmoticon = hasPositiveEmoticon;
-        this.hasNegativeEmoticon = hasNegativeEmoticon;
+        flags = 0;
+        setFlag(DIRECT, isDirect);
+        setFlag(MENTION, isMention);
+        setFlag(HASHTAG, isHashtag);
+        setFlag(URL, isURL);
+        setFlag(EXCLAMATION, isExclamation);
+        setFlag(QUESTION, isQuestion);
+        setFlag(POSITIVE_EMOTICON, hasPositiveEmoticon);
+        setFlag(NEGATIVE_EMOTICON, hasNegativeEmoticon);
         this.authorFollowerNumber = followerNumber;
-        retweeters = new HashSet<User>();
+        retweeters = new RetweeterSet();
         this.treeDepth = 0;
+        this.sentiment = SentimentClassifier.getCode(sentiment);
+        this.topic = TopicClassifier.getCode(topic);
+    }
+
+    /**
+     * Constructor. Rebuilds a tweet from its packed values, as kept in a monitor file.
+     * 
+     * @param id This tweet's ID in the Twitter network.
+     * @param text The text of this tweet.
+     * @param tweetCreated The time this tweet was posted, in epoch milliseconds.
+     * @param startedMonitoring The time we started monitoring this tweet, in epoch milliseconds.
+     * @param lastObserved The time of this tweet's last observation, in epoch milliseconds.
+     * @param flags This tweet's flags, as returned by {@link #getFlags()}.
+     * @param sentiment This tweet's sentiment code.
+     * @param topic This tweet's topic code.
+     * @param followerNumber The number of followers the author has.
+     * @param treeDepth The depth of this tweet's diffusion tree.
+     * @param inactivePeriods The amount of periods since this tweet's last retweet.
+     * @param retweetCount This tweet's number of retweets every 15 minutes.
+     * @param retweetLikelihood This tweet's retweet likelihood every 15 minutes.
+     * @param retweeters The users who retweeted this tweet.
+     * @see MonitorReader
+     */
+    MonitoredStatus(long id, String text, long tweetCreated, long startedMonitoring, long lastObserved, byte flags, 
+            byte sentiment, byte topic, int followerNumber, int treeDepth, int inactivePeriods, IntSeries retweetCount, 
+            DoubleSeries retweetLikelihood, RetweeterSet retweeters) {
+        this.id = id;
+        this.text = text;
+        this.tweetCreated = tweetCreated;
+        this.startedMonitoring = startedMonitoring;
+        this.lastObserved = lastObserved;
+        this.flags = flags;
         this.sentiment = sentiment;
         this.topic = topic;
+        this.authorFollowerNumber = followerNumber;
+        this.treeDepth = treeDepth;
+        this.inactivePeriods = inactivePeriods;
+        this.retweetCount = retweetCount;
+        this.retweetLikelihood = retweetLikelihood;
+        this.retweeters = retweeters;
+    }
+
+    /**
+     * Returns a copy of this tweet as it is now, which doesn't change when this tweet is observed again.
+     * 
+     * @return A new tweet with the same values.
+     * @see CheckpointWriter
+     */
+    public MonitoredStatus copy() {
+        return new MonitoredStatus(id, text, tweetCreated, startedMonitoring, lastObserved, flags, sentiment, topic, 
+                authorFollowerNumber, treeDepth, inactivePeriods, retweetCount.copy(), retweetLikelihood.copy(), 
+                retweeters.copy());
     }
 
     /**
@@ -111,7 +164,7 @@ public class MonitoredStatus implements Serializable {
      * @see TopicClassifier
      */
     public String getTopic() {
-        return topic;
+        return TopicClassifier.getCategory(topic);
     }
 
     /**
@@ -121,7 +174,17 @@ public class MonitoredStatus implements Serializable {
      * @see TopicClassifier
      */
     public void setTopic(String topic) {
-        this.topic = topic;
+        this.topic = TopicClassifier.getCode(topic);
+    }
+
+    /**
+     * Returns this tweet's topic as its code.
+     * 
+     * @return The topic's position in the list in {@link TopicClassifier}, or -1 if it has none.
+     * @see TopicClassifier#getCategory(int)
+     */
+    public byte getTopicCode() {
+        return topic;
     }
 
     /**
@@ -131,7 +194,7 @@ public class MonitoredStatus implements Serializable {
      * @return This tweet's sentiment: "pos", "neg" or "neu".
      */
     public String getSentiment() {
-        return sentiment;
+        return SentimentClassifier.getCategory(sentiment);
     }
 
     /**
@@ -140,30 +203,46 @@ public class MonitoredStatus implements Serializable {
      * @param sentiment The tweet's sentiment.
      */
     public void setSentiment(String sentiment) {
-        this.sentiment = sentiment;
+        this.sentiment = SentimentClassifier.getCode(sentiment);
     }
 
     /**
-     * Returns a list containing this tweet's combined statistic, measured every
+     * Returns this tweet's sentiment as its code.
+     * 
+     * @return 0 for "pos", 1 for "neg", 2 for "neu", or -1 if it has none.
+     * @see SentimentClassifier#getCategory(int)
+     */
+    public byte getSentimentCode() {
+        return sentiment;
+    }
+
+    /**
+     * Returns a series containing this tweet's combined statistic, measured every
      * 15 minutes. We define the combined statistic as the number of retweets 
-     * multiplied by the retweet likelihood.
+     * multiplied by the retweet likelihood. It isn't stored, so a new series is
+     * worked out from the other two every time this method is called.
      * 
      * @return This tweet's number of retweets multiplied by the retweet likelihood.
+     * @see #getCombined(int)
      */
-    public LinkedList<Double> getCombined() {
+    public DoubleSeries getCombined() {
+        DoubleSeries combined = new DoubleSeries();
+        for (int i = 0; i < retweetCount.size(); i++)
+            combined.add(getCombined(i));
         return combined;
     }
 
     /**
-     * Sets the list of this tweet's combined statistic, measured every 15 minutes.
-     * We define the combined statistic as the number of retweets multiplied by
-     * the retweet likelihood.
+     * Returns this tweet's combined statistic in one of the periods it was
+     * observed in. We define the combined statistic as the number of retweets
+     * multiplied by the retweet likelihood.
      * 
-     * @param combined A list containing this tweet's combined statistic every 15 
-     * minutes.
+     * @param period The period, 0 being the first one observed.
+     * @return This tweet's number of retweets multiplied by the retweet likelihood
+     * in that period.
      */
-    public void setCombined(LinkedList<Double> combined) {
-        this.combined = combined;
+    public double getCombined(int period) {
+        return retweetCount.get(period) * retweetLikelihood.get(period);
     }
 
     /**
@@ -193,20 +272,21 @@ public class MonitoredStatus implements Serializable {
     }
 
     /**
-     * Returns the set of the users who retweeted this tweet.
+     * Returns the set of the users who retweeted this tweet, as their IDs and
+     * follower counts.
      * 
      * @return The set of users who retweeted this tweet.
      */
-    public HashSet<User> getRetweeters() {
+    public RetweeterSet getRetweeters() {
         return retweeters;
     }
 
     /**
-     * Sets this tweet's retweeter set to the <code>HashSet</code> passed to this method.
+     * Sets this tweet's retweeter set to the <code>RetweeterSet</code> passed to this method.
      * 
      * @param retweeters The set of users who retweeted this tweet.
      */
-    public void setRetweeters(HashSet<User> retweeters) {
+    public void setRetweeters(RetweeterSet retweeters) {
         this.retweeters = retweeters;
     }
 
@@ -235,7 +315,7 @@ public class MonitoredStatus implements Serializable {
      * @return True if this tweet has a positive emoticon, false otherwise.
      */
     public boolean hasPositiveEmoticon() {
-        return hasPositiveEmoticon;
+        return (flags & POSITIVE_EMOTICON) != 0;
     }
 
     /**
@@ -246,7 +326,7 @@ public class MonitoredStatus implements Serializable {
      * false otherwise.
      */
     public void setPositiveEmoticon(boolean hasPositiveEmoticon) {
-        this.hasPositiveEmoticon = hasPositiveEmoticon;
+        setFlag(POSITIVE_EMOTICON, hasPositiveEmoticon);
     }
 
     /**
@@ -256,7 +336,7 @@ public class MonitoredStatus implements Serializable {
      * @return True if this tweet has a negative emoticon, false otherwise.
      */
     public boolean hasNegativeEmoticon() {
-        return hasNegativeEmoticon;
+        return (flags & NEGATIVE_EMOTICON) != 0;
     }
 
     /**
@@ -267,7 +347,7 @@ public class MonitoredStatus implements Serializable {
      * false otherwise.
      */
     public void setNegativeEmoticon(boolean hasNegativeEmoticon) {
-        this.hasNegativeEmoticon = hasNegativeEmoticon;
+        setFlag(NEGATIVE_EMOTICON, hasNegativeEmoticon);
     }
 
     /**
@@ -276,7 +356,7 @@ public class MonitoredStatus implements Serializable {
      * @return True if this tweet has an exclamation mark, false otherwise.
      */
     public boolean isExclamation() {
-        return isExclamation;
+        return (flags & EXCLAMATION) != 0;
     }
 
     /**
@@ -286,7 +366,7 @@ public class MonitoredStatus implements Serializable {
      * false otherwise.
      */
     public void setExclamation(boolean isExclamation) {
-        this.isExclamation = isExclamation;
+        setFlag(EXCLAMATION, isExclamation);
     }
     
     /**
@@ -295,7 +375,7 @@ public class MonitoredStatus implements Serializable {
      * @return True if this tweet has a question mark, false otherwise.
      */
     public boolean isQuestion() {
-        return isQuestion;
+        return (flags & QUESTION) != 0;
     }
 
     /**
@@ -305,28 +385,28 @@ public class MonitoredStatus implements Serializable {
      * false otherwise.
      */
     public void setQuestion(boolean isQuestion) {
-        this.isQuestion = isQuestion;
+        setFlag(QUESTION, isQuestion);
     }
 
     /**
-     * Returns a list containing the number of retweets this tweet has had 
+     * Returns a series containing the number of retweets this tweet has had 
      * every 15 minutes since we started monitoring it.
      * 
-     * @return A list containing the number of retweets this tweet has had
+     * @return A series containing the number of retweets this tweet has had
      * every 15 minutes.
      */
-    public LinkedList<Integer> getRetweetCount() {
+    public IntSeries getRetweetCount() {
         return retweetCount;
     }
 
     /**
-     * Returns a list containing the retweet likelihood this tweet has had 
+     * Returns a series containing the retweet likelihood this tweet has had 
      * every 15 minutes since we started monitoring it.
      * 
-     * @return A list containing the number of retweets this tweet has had
+     * @return A series containing the number of retweets this tweet has had
      * every 15 minutes.
      */
-    public LinkedList<Double> getRetweetLikelihood() {
+    public DoubleSeries getRetweetLikelihood() {
         return retweetLikelihood;
     }
 
@@ -340,7 +420,7 @@ public class MonitoredStatus implements Serializable {
      * @see #setMention
      */
     public boolean isDirect() {
-        return isDirect;
+        return (flags & DIRECT) != 0;
     }
     
     /**
@@ -353,7 +433,7 @@ public class MonitoredStatus implements Serializable {
      * @see #setMention
      */
     public void setDirect(boolean isDirect) {
-        this.isDirect = isDirect;
+        setFlag(DIRECT, isDirect);
     }
 
     /**
@@ -363,7 +443,7 @@ public class MonitoredStatus implements Serializable {
      * @return Whether this tweet has a mention or not.
      */
     public boolean hasMention() {
-        return hasMention;
+        return (flags & MENTION) != 0;
     }
 
     /**
@@ -373,7 +453,7 @@ public class MonitoredStatus implements Serializable {
      * @param hasMention Whether this tweet has a mention or not.
      */
     public void setMention(boolean hasMention) {
-        this.hasMention = hasMention;
+        setFlag(MENTION, hasMention);
     }
 
     /**
@@ -386,7 +466,7 @@ public class MonitoredStatus implements Serializable {
      * @return Whether this tweet has a hashtag or not.
      */
     public boolean hasHashtag() {
-        return hasHashtag;
+        return (flags & HASHTAG) != 0;
     }
 
     /**
@@ -399,7 +479,7 @@ public class MonitoredStatus implements Serializable {
      * @param hasHashtag Whether this tweet has a hashtag or not.
      */
     public void setHashtag(boolean hasHashtag) {
-        this.hasHashtag = hasHashtag;
+        setFlag(HASHTAG, hasHashtag);
     }
 
     /**
@@ -408,7 +488,7 @@ public class MonitoredStatus implements Serializable {
      * @return Whether this tweet contains an URL or not.
      */
     public boolean hasURL() {
-        return hasURL;
+        return (flags & URL) != 0;
     }
 
     /**
@@ -417,94 +497,115 @@ public class MonitoredStatus implements Serializable {
      * @param hasURL Whether this tweet contains an URL or not.
      */
     public void setURL(boolean hasURL) {
-        this.hasURL = hasURL;
+        setFlag(URL, hasURL);
     }
 
     /**
-     * Prints to console most of this tweet's characteristics.
+     * Prints to console most of this tweet's characteristics, and its retweeters.
      */
     public void print() {
-        System.out.println("ID = " + id);
-        System.out.println("Text = " + text);
-        System.out.println("Created at = " + tweetCreated);
-        System.out.println("Started monitoring at = " + startedMonitoring);
-        System.out.print("RetweetCount: ");
-        for (int rtc : retweetCount) {
-            System.out.print(rtc + ", ");
-        }
-        System.out.println();
-        
-        System.out.print("RetweetLikelihood: ");
-        for (double rtl : retweetLikelihood) {
-            System.out.print(rtl + ", ");
-        }
-        System.out.println();
-        System.out.print("Combined: ");
-        for (double rtl : combined) {
-            System.out.print(rtl + ", ");
-        }
-        System.out.println();
-        
-        System.out.println("Is Direct: " + isDirect);
-        System.out.println("Is Mention: " + hasMention);
-        System.out.println("Is Hashtag: " + hasHashtag);
-        System.out.println("Is URL: " + hasURL);
-        System.out.println("Is Exclamation: " + isExclamation);
-        System.out.println("Is Question: " + isQuestion);
-        System.out.println("Sentiment: " + sentiment);
-        System.out.println("Topic: " + topic);
-        System.out.println("Is Emoticon Positive: " + hasPositiveEmoticon);
-        System.out.println("Is Emoticon Negative: " + hasNegativeEmoticon);
-        System.out.println("Author's followers: " + authorFollowerNumber);
-        System.out.print("Retweeters: ");
-        for (User u : retweeters)
-            System.out.print(u.getScreenName() + ", ");
-        System.out.println();
-        System.out.println();
-    }
-
-    /**
-     * Prints to a file most of this tweet's characteristics.
+        PrintWriter writer = new PrintWriter(System.out);
+        printTo(writer);
+        writer.print("Retweeters: ");
+        for (long retweeter : retweeters.getIds())
+            writer.print(retweeter + ", ");
+        writer.println();
+        writer.println();
+        writer.flush();
+    }
+
+    /**
+     * Prints to a file most of this tweet's characteristics. Opens and closes the file each time, so use a 
+     * {@link ReportWriter} to print many tweets.
      * 
      * @param file The file to print to.
      * @throws IOException
      */
     public void printToFile(File file) throws IOException {
         PrintWriter writer = new PrintWriter(new BufferedWriter(new FileWriter(file, true)));
+        printTo(writer);
+        writer.println();
+        writer.close();
+    }
+
+    /**
+     * Prints most of this tweet's characteristics to a writer, one per line. Doesn't flush or close the writer.
+     * 
+     * @param writer The writer to print to.
+     */
+    public void printTo(PrintWriter writer) {
         writer.println("ID = " + id);
         writer.println("Text = " + text);
-        writer.println("Created at = " + tweetCreated);
-        writer.println("Started monitoring at = " + startedMonitoring);
+        writer.println("Created at = " + getTweetCreated());
+        writer.println("Started monitoring at = " + getStartedMonitoring());
         writer.print("RetweetCount: ");
-        for (int rtc : retweetCount) {
-            writer.print(rtc + ", ");
+        for (int i = 0; i < retweetCount.size(); i++) {
+            writer.print(retweetCount.get(i) + ", ");
         }
         writer.println();
         
         writer.print("RetweetLikelihood: ");
-        for (double rtl : retweetLikelihood) {
-            writer.print(rtl + ", ");
+        for (int i = 0; i < retweetLikelihood.size(); i++) {
+            writer.print(retweetLikelihood.get(i) + ", ");
         }
         writer.println();
         writer.print("Combined: ");
-        for (double rtl : combined) {
-            writer.print(rtl + ", ");
+        for (int i = 0; i < retweetCount.size(); i++) {
+            writer.print(getCombined(i) + ", ");
         }
         writer.println();
         
-        writer.println("Is Direct: " + isDirect);
-        writer.println("Is Mention: " + hasMention);
-        writer.println("Is Hashtag: " + hasHashtag);
-        writer.println("Is URL: " + hasURL);
-        writer.println("Is Exclamation: " + isExclamation);
-        writer.println("Is Question: " + isQuestion);
-        writer.println("Sentiment: " + sentiment);
-        writer.println("Topic: " + topic);
-        writer.println("Is Emoticon Positive: " + hasPositiveEmoticon);
-        writer.println("Is Emoticon Negative: " + hasNegativeEmoticon);
+        writer.println("Is Direct: " + isDirect());
+        writer.println("Is Mention: " + hasMention());
+        writer.println("Is Hashtag: " + hasHashtag());
+        writer.println("Is URL: " + hasURL());
+        writer.println("Is Exclamation: " + isExclamation());
+        writer.println("Is Question: " + isQuestion());
+        writer.println("Sentiment: " + getSentiment());
+        writer.println("Topic: " + getTopic());
+        writer.println("Is Emoticon Positive: " + hasPositiveEmoticon());
+        writer.println("Is Emoticon Negative: " + hasNegativeEmoticon());
         writer.println("Author's followers: " + authorFollowerNumber);
-        writer.println();
-        writer.close();
+    }
+
+    /**
+     * Prints this tweet as a JSON object on a single line, for tools that read JSON lines.
+     * 
+     * @param writer The writer to print to.
+     * @see ReportWriter
+     */
+    public void printJsonTo(PrintWriter writer) {
+        long[] ids = retweeters.getIds();
+        writer.print("{\"id\":" + id);
+        writer.print(",\"text\":");
+        printJsonString(writer, text);
+        writer.print(",\"created\":" + (tweetCreated == NO_DATE ? "null" : String.valueOf(tweetCreated)));
+        writer.print(",\"startedMonitoring\":" + startedMonitoring);
+        writer.print(",\"retweetCount\":[");
+        for (int i = 0; i < retweetCount.size(); i++)
+            writer.print((i > 0 ? "," : "") + retweetCount.get(i));
+        writer.print("],\"retweetLikelihood\":[");
+        for (int i = 0; i < retweetLikelihood.size(); i++)
+            writer.print((i > 0 ? "," : "") + retweetLikelihood.get(i));
+        writer.print("],\"isDirect\":" + isDirect());
+        writer.print(",\"hasMention\":" + hasMention());
+        writer.print(",\"hasHashtag\":" + hasHashtag());
+        writer.print(",\"hasURL\":" + hasURL());
+        writer.print(",\"isExclamation\":" + isExclamation());
+        writer.print(",\"isQuestion\":" + isQuestion());
+        writer.print(",\"sentiment\":");
+        printJsonString(writer, getSentiment());
+        writer.print(",\"topic\":");
+        printJsonString(writer, getTopic());
+        writer.print(",\"hasPositiveEmoticon\":" + hasPositiveEmoticon());
+        writer.print(",\"hasNegativeEmoticon\":" + hasNegativeEmoticon());
+        writer.print(",\"authorFollowers\":" + authorFollowerNumber);
+        writer.print(",\"treeDepth\":" + treeDepth);
+        writer.print(",\"inactivePeriods\":" + inactivePeriods);
+        writer.print(",\"retweeters\":[");
+        for (int i = 0; i < ids.length; i++)
+            writer.print((i > 0 ? "," : "") + ids[i]);
+        writer.println("]}");
     }
 
     /**
@@ -531,6 +632,15 @@ public class MonitoredStatus implements Serializable {
      * @return The date and time this tweet was posted.
      */
     public Date getTweetCreated() {
+        return toDate(tweetCreated);
+    }
+
+    /**
+     * Returns the time this tweet was posted.
+     * 
+     * @return Epoch milliseconds, or <code>Long.MIN_VALUE</code> if it isn't known.
+     */
+    public long getTweetCreatedMillis() {
         return tweetCreated;
     }
 
@@ -540,12 +650,53 @@ public class MonitoredStatus implements Serializable {
      * @return The date and time we started monitoring this tweet.
      */
     public Date getStartedMonitoring() {
+        return toDate(startedMonitoring);
+    }
+
+    /**
+     * Returns the time we started monitoring this tweet.
+     * 
+     * @return Epoch milliseconds.
+     */
+    public long getStartedMonitoringMillis() {
         return startedMonitoring;
     }
 
     /**
-     * Adds an observation of the number of retweets, the retweet likelihood
-     * and the combined statistic of this tweet. This method is called every 
+     * Returns the time of this tweet's last observation, or the time we started monitoring it if it hasn't been
+     * observed since.
+     * 
+     * @return Epoch milliseconds.
+     */
+    public long getLastObservedMillis() {
+        return lastObserved;
+    }
+
+    /**
+     * Works out when a tweet was last observed, for tweets serialized before that was kept, assuming it was observed
+     * once when we started monitoring it and then once every period.
+     * 
+     * @param startedMonitoring The time we started monitoring the tweet, in epoch milliseconds.
+     * @param observations The amount of periods observed.
+     * @return The time of its last observation, in epoch milliseconds.
+     */
+    static long estimateLastObserved(long startedMonitoring, int observations) {
+        return startedMonitoring + Math.max(0, observations - 1) * PERIOD;
+    }
+
+    /**
+     * Returns the yes or no characteristics of this tweet packed in a byte. From the lowest bit up: direct mention,
+     * mention, hashtag, URL, exclamation mark, question mark, positive emoticon and negative emoticon.
+     * 
+     * @return This tweet's flags.
+     */
+    public byte getFlags() {
+        return flags;
+    }
+
+    /**
+     * Adds an observation of the number of retweets and the retweet likelihood
+     * of this tweet, which also make up its combined statistic. This method is called every 
      * 15 minutes to keep an
      * accurate record of these measurements. If the retweet amount is the same
      * as the previously observed amount, the count of inactive periods goes 
@@ -554,17 +705,53 @@ public class MonitoredStatus implements Serializable {
      * 
      * @param oRetweetCount The number of retweets observed in this period.
      * @param oRetweetLikelihood The retweet likelihood observed in this period.
+     * @see #addObservation(int, double, int)
      */
     public void addObservation(int oRetweetCount, double oRetweetLikelihood) {
-        if(!retweetCount.isEmpty() && (retweetCount.getLast() == oRetweetCount)) {
-            inactivePeriods++;
+        addObservation(oRetweetCount, oRetweetLikelihood, 1);
+    }
+
+    /**
+     * Adds an observation that covers several periods, for tweets that
+     * weren't observed in every period. The number of retweets of the
+     * periods in between is filled in linearly from the previous
+     * observation, and they get the observed retweet likelihood. If the
+     * retweet amount is the same as the previously observed amount, every
+     * period covered counts as inactive.
+     * 
+     * @param oRetweetCount The number of retweets observed in this period.
+     * @param oRetweetLikelihood The retweet likelihood observed in this period.
+     * @param periods The periods since the last observation, at least 1.
+     * @see RefreshScheduler
+     */
+    public void addObservation(int oRetweetCount, double oRetweetLikelihood, int periods) {
+        addObservation(oRetweetCount, oRetweetLikelihood, periods, System.currentTimeMillis());
+    }
+
+    /**
+     * Adds an observation that covers several periods, made at a given time, for observations replayed from the
+     * {@link MonitorJournal}.
+     * 
+     * @param oRetweetCount The number of retweets observed in this period.
+     * @param oRetweetLikelihood The retweet likelihood observed in this period.
+     * @param periods The periods since the last observation, at least 1.
+     * @param observed The time of the observation, in epoch milliseconds.
+     * @see #addObservation(int, double, int)
+     */
+    void addObservation(int oRetweetCount, double oRetweetLikelihood, int periods, long observed) {
+        int previous = retweetCount.isEmpty() ? oRetweetCount : retweetCount.getLast(), filled;
+        if(!retweetCount.isEmpty() && (previous == oRetweetCount)) {
+            inactivePeriods += periods;
         }
         else {
             inactivePeriods = 0;
         }
-        retweetCount.add(oRetweetCount);
-        retweetLikelihood.add(oRetweetLikelihood);
-        combined.add(oRetweetCount * oRetweetLikelihood);
+        for (int i = 1; i <= periods; i++) {
+            filled = previous + (oRetweetCount - previous) * i / periods;
+            retweetCount.add(filled);
+            retweetLikelihood.add(oRetweetLikelihood);
+        }
+        lastObserved = observed;
     }
 
     /**
@@ -589,6 +776,70 @@ public class MonitoredStatus implements Serializable {
         return true;
     }
 
+    /**
+     * Turns one of this tweet's flags on or off.
+     * 
+     * @param flag The flag's bit.
+     * @param value True to turn it on, false to turn it off.
+     */
+    private void setFlag(int flag, boolean value) {
+        if (value)
+            flags |= flag;
+        else
+            flags &= ~flag;
+    }
+
+    /**
+     * Prints a string as a JSON string, quoted and escaped.
+     * 
+     * @param writer The writer to print to.
+     * @param string The string, or <code>null</code>.
+     */
+    private static void printJsonString(PrintWriter writer, String string) {
+        char c;
+        if (string == null) {
+            writer.print("null");
+            return;
+        }
+        writer.print('"');
+        for (int i = 0; i < string.length(); i++) {
+            c = string.charAt(i);
+            if (c == '"' || c == '\\')
+                writer.print("\\" + c);
+            else if (c == '\n')
+                writer.print("\\n");
+            else if (c == '\r')
+                writer.print("\\r");
+            else if (c == '\t')
+                writer.print("\\t");
+            else if (c < 0x20)
+                writer.print(String.format("\\u%04x", (int)c));
+            else
+                writer.print(c);
+        }
+        writer.print('"');
+    }
+
+    /**
+     * Turns a date into epoch milliseconds.
+     * 
+     * @param date The date, or <code>null</code>.
+     * @return The date's epoch milliseconds, or <code>NO_DATE</code> if it's <code>null</code>.
+     */
+    private static long toMillis(Date date) {
+        return date == null ? NO_DATE : date.getTime();
+    }
+
+    /**
+     * Turns epoch milliseconds into a date. A new date is made every time, so callers can't change this tweet's.
+     * 
+     * @param millis Epoch milliseconds, or <code>NO_DATE</code>.
+     * @return The date, or <code>null</code>.
+     */
+    private static Date toDate(long millis) {
+        return millis == NO_DATE ? null : new Date(millis);
+    }
+
     /**
      * Returns the amount of periods since this tweet's last retweet. Periods
      * are 15 minutes long, and a tweet is considered dead when it reaches an
@@ -0,0 +1,217 @@
+package create_sample;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CodingErrorAction;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * Reads a training corpus packed into a single file by {@link CorpusPacker}, through a memory map, so loading it is
+ * one file open instead of one per example.
+ *
+ * The file starts with a header: a magic number, the format version, and for each category its name and the length
+ * of each of its examples. The examples' UTF-8 text follows, one after the other, category by category. Example texts
+ * are decoded straight from the map into a buffer that's reused for every example, so nothing is copied onto the heap
+ * before it's decoded.
+ *
+ * @author José Parada
+ * @version 1.0
+ * @see CorpusPacker
+ * @see TopicClassifier#trainClassifier()
+ */
+public class PackedCorpus {
+    static final int MAGIC = 0x434F5250; // "CORP"
+    static final short VERSION = 1;
+    static final Charset CHARSET = Charset.forName("UTF-8");
+    private final MappedByteBuffer map;
+    private final LinkedHashMap<String, Integer> categories; // Position of each category
+    private final int[][] lengths; // Of each category's examples, in bytes
+    private final int[] starts; // Where each category's first example is in the file
+
+    /**
+     * Constructor. Maps a packed corpus and reads its header.
+     *
+     * @param file The packed corpus.
+     * @throws IOException If the file can't be read, or isn't a packed corpus of a version we can read.
+     */
+    public PackedCorpus(File file) throws IOException {
+        RandomAccessFile input = new RandomAccessFile(file, "r");
+        String name;
+        byte[] nameBytes;
+        short version;
+        int count, start;
+        try {
+            if (input.length() > Integer.MAX_VALUE)
+                throw new IOException("Method: PackedCorpus. " + file + " is too large to be mapped.");
+            map = input.getChannel().map(FileChannel.MapMode.READ_ONLY, 0, input.length());
+        } finally {
+            input.close(); // The map stays valid
+        }
+        if (map.remaining() < 10 || map.getInt() != MAGIC)
+            throw new IOException("Not a packed corpus.");
+        version = map.getShort();
+        if (version != VERSION)
+            throw new IOException("Unknown packed corpus version: " + version);
+        categories = new LinkedHashMap<String, Integer>();
+        try {
+            count = readCount(file);
+            lengths = new int[count][];
+            starts = new int[count];
+            for (int i = 0; i < count; i++) {
+                nameBytes = new byte[map.getShort() & 0xFFFF]; // Unsigned
+                map.get(nameBytes);
+                name = new String(nameBytes, CHARSET);
+                categories.put(name, i);
+                lengths[i] = new int[readCount(file)];
+                for (int j = 0; j < lengths[i].length; j++)
+                    if ((lengths[i][j] = map.getInt()) < 0)
+                        throw new IOException("Method: PackedCorpus. " + file + " is truncated or corrupt.");
+            }
+        } catch (BufferUnderflowException e) {
+            throw new IOException("Method: PackedCorpus. " + file + " is truncated or corrupt.", e);
+        }
+        start = map.position();
+        for (int i = 0; i < count; i++) {
+            starts[i] = start;
+            for (int length : lengths[i])
+                start += length;
+        }
+        if (start != map.limit())
+            throw new IOException("Method: PackedCorpus. " + file + " is truncated or corrupt.");
+    }
+
+    /**
+     * Reads an amount of categories or examples from the header. Each of them takes at least four bytes of the
+     * header, so an amount that doesn't fit in what's left of the file is corrupt.
+     *
+     * @param file The packed corpus, for the error message.
+     * @return The amount.
+     * @throws IOException If the amount can't be right.
+     */
+    private int readCount(File file) throws IOException {
+        int count = map.getInt();
+        if (count < 0 || count > map.remaining() / 4)
+            throw new IOException("Method: PackedCorpus. " + file + " is truncated or corrupt.");
+        return count;
+    }
+
+    /**
+     * Returns the corpus' categories.
+     *
+     * @return The categories' names, in the order they were packed.
+     */
+    public List<String> getCategories() {
+        return Collections.unmodifiableList(new ArrayList<String>(categories.keySet()));
+    }
+
+    /**
+     * Returns the amount of examples a category has.
+     *
+     * @param category The category's name.
+     * @return The amount of examples, 0 if the category isn't in the corpus.
+     */
+    public int size(String category) {
+        Integer position = categories.get(category);
+        return position == null ? 0 : lengths[position].length;
+    }
+
+    /**
+     * Returns a category's example texts, in the order they were packed. Each iterator decodes the texts into a
+     * buffer of its own, which is reused, so a text is only valid until the iterator's next one. Several threads can
+     * iterate at the same time, each with its own iterator.
+     *
+     * @param category The category's name.
+     * @return The category's texts, none if the category isn't in the corpus.
+     */
+    public Iterable<CharSequence> texts(String category) {
+        Integer position = categories.get(category);
+        final int[] examples = position == null ? new int[0] : lengths[position];
+        final int start = position == null ? 0 : starts[position];
+        return new Iterable<CharSequence>() {
+            public Iterator<CharSequence> iterator() {
+                return new TextIterator(examples, start);
+            }
+        };
+    }
+
+    /**
+     * Decodes a category's texts one at a time, straight from the map.
+     */
+    private class TextIterator implements Iterator<CharSequence> {
+        private final int[] examples;
+        private final ByteBuffer source;
+        private final CharsetDecoder decoder;
+        private final CharBuffer text;
+        private int next, offset;
+
+        /**
+         * Constructor.
+         *
+         * @param examples The length of each of the category's examples, in bytes.
+         * @param start Where the category's first example is in the file.
+         */
+        private TextIterator(int[] examples, int start) {
+            int longest = 0;
+            this.examples = examples;
+            for (int length : examples)
+                longest = Math.max(longest, length);
+            source = map.duplicate(); // Its own position and limit, same contents
+            decoder = CHARSET.newDecoder().onMalformedInput(CodingErrorAction.REPLACE)
+                    .onUnmappableCharacter(CodingErrorAction.REPLACE);
+            text = CharBuffer.allocate(longest); // UTF-8 never has fewer bytes than chars
+            next = 0;
+            offset = start;
+        }
+
+        /**
+         * Returns whether there are texts left.
+         *
+         * @return True if there are, false otherwise.
+         */
+        public boolean hasNext() {
+            return next < examples.length;
+        }
+
+        /**
+         * Decodes the next text.
+         *
+         * @return The text, valid until the next call.
+         * @throws NoSuchElementException If there are no texts left.
+         */
+        public CharSequence next() {
+            if (!hasNext())
+                throw new NoSuchElementException();
+            source.limit(offset + examples[next]).position(offset);
+            offset += examples[next];
+            next++;
+            text.clear();
+            decoder.reset();
+            decoder.decode(source, text, true);
+            decoder.flush(text);
+            text.flip();
+            return text;
+        }
+
+        /**
+         * Not supported, the corpus is read only.
+         *
+         * @throws UnsupportedOperationException
+         */
+        public void remove() {
+            throw new UnsupportedOperationException("Method: remove. The corpus is read only.");
+        }
+    }
+}
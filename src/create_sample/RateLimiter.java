@@ -0,0 +1,220 @@
+package create_sample;
+
+import java.util.HashMap;
+
+import twitter4j.RateLimitStatus;
+import twitter4j.TwitterException;
+import twitter4j.TwitterResponse;
+
+/**
+ * Keeps track of the calls left for every credential and API method. Each pair has a bucket of calls that is
+ * refilled when Twitter's rate limit window resets. The buckets start with the documented limits, and are synced
+ * from the rate limit status Twitter attaches to every response, so we only wait as long as the real window has
+ * left instead of a full 15 minutes.
+ *
+ * @author José Parada
+ * @version 1.0
+ * @see Endpoint
+ * @see ApiExecutor
+ */
+public class RateLimiter {
+    private static final long WINDOW = 900000; // Milliseconds in a rate limit window
+    private static final int MILLISECONDS_IN_A_SECOND = 1000;
+    private final HashMap<String, Bucket> buckets;
+
+    /**
+     * The calls left for a credential and API method in the current window.
+     */
+    private static class Bucket {
+        private int limit; // Calls per window
+        private int remaining; // Calls left in the current window
+        private long reset; // When the current window ends, in epoch milliseconds
+
+        /**
+         * Constructor. The bucket starts full.
+         *
+         * @param limit The calls allowed per window.
+         */
+        private Bucket(int limit) {
+            this.limit = limit;
+            remaining = limit;
+            reset = System.currentTimeMillis() + WINDOW;
+        }
+
+        /**
+         * Refills the bucket if its window has ended.
+         *
+         * @param now The current time, in epoch milliseconds.
+         */
+        private void refill(long now) {
+            if (now >= reset) {
+                remaining = limit;
+                reset = now + WINDOW;
+            }
+        }
+    }
+
+    /**
+     * Constructor. Credentials have to be added before their calls are limited.
+     */
+    public RateLimiter() {
+        buckets = new HashMap<String, Bucket>();
+    }
+
+    /**
+     * Adds a bucket for every API method a credential can call, with the method's documented limit.
+     *
+     * @param credential The name of the credential.
+     * @param application True if the credential uses app authorization, false if it uses user authorization.
+     */
+    public synchronized void addCredential(String credential, boolean application) {
+        for (Endpoint endpoint : Endpoint.values())
+            buckets.put(key(credential, endpoint), new Bucket(application ? endpoint.getAppLimit() : endpoint.getUserLimit()));
+    }
+
+    /**
+     * Takes a call from a bucket, waiting for its window to reset if it's empty. Calls of credentials that haven't
+     * been added aren't limited.
+     *
+     * @param credential The name of the credential.
+     * @param endpoint The API method.
+     * @throws InterruptedException
+     */
+    public synchronized void acquire(String credential, Endpoint endpoint) throws InterruptedException {
+        Bucket bucket = buckets.get(key(credential, endpoint));
+        long wait;
+        if (bucket == null)
+            return;
+        while (true) {
+            bucket.refill(System.currentTimeMillis());
+            if (bucket.remaining > 0)
+                break;
+            wait = bucket.reset - System.currentTimeMillis();
+            if (wait > 0)
+                wait(wait); // Releases the lock, so other buckets can still be used
+        }
+        bucket.remaining--;
+    }
+
+    /**
+     * Takes a call from a bucket if it isn't empty. Calls of credentials that haven't been added aren't limited.
+     *
+     * @param credential The name of the credential.
+     * @param endpoint The API method.
+     * @return True if a call was taken, false if the bucket was empty.
+     */
+    public synchronized boolean tryAcquire(String credential, Endpoint endpoint) {
+        Bucket bucket = buckets.get(key(credential, endpoint));
+        if (bucket == null)
+            return true;
+        bucket.refill(System.currentTimeMillis());
+        if (bucket.remaining == 0)
+            return false;
+        bucket.remaining--;
+        return true;
+    }
+
+    /**
+     * Gives back a call that was taken from a bucket but never made. Calls of credentials that haven't been added
+     * aren't limited.
+     *
+     * @param credential The name of the credential.
+     * @param endpoint The API method.
+     */
+    public synchronized void release(String credential, Endpoint endpoint) {
+        Bucket bucket = buckets.get(key(credential, endpoint));
+        if (bucket == null)
+            return;
+        bucket.refill(System.currentTimeMillis());
+        if (bucket.remaining < bucket.limit) {
+            bucket.remaining++;
+            notifyAll(); // A thread waiting for this bucket can take the call
+        }
+    }
+
+    /**
+     * Returns the calls left for a credential and API method in the current window.
+     *
+     * @param credential The name of the credential.
+     * @param endpoint The API method.
+     * @return The calls left, or <code>Integer.MAX_VALUE</code> if the credential hasn't been added.
+     */
+    public synchronized int remaining(String credential, Endpoint endpoint) {
+        Bucket bucket = buckets.get(key(credential, endpoint));
+        if (bucket == null)
+            return Integer.MAX_VALUE;
+        bucket.refill(System.currentTimeMillis());
+        return bucket.remaining;
+    }
+
+    /**
+     * Returns how long until a credential and API method have calls again.
+     *
+     * @param credential The name of the credential.
+     * @param endpoint The API method.
+     * @return Milliseconds until there are calls left, 0 if there are already.
+     */
+    public synchronized long waitTime(String credential, Endpoint endpoint) {
+        Bucket bucket = buckets.get(key(credential, endpoint));
+        long now = System.currentTimeMillis();
+        if (bucket == null)
+            return 0;
+        bucket.refill(now);
+        return bucket.remaining > 0 ? 0 : bucket.reset - now;
+    }
+
+    /**
+     * Syncs a bucket with the rate limit status of a response.
+     *
+     * @param credential The name of the credential the call was made with.
+     * @param endpoint The API method called.
+     * @param response The response. Its rate limit status may be missing.
+     */
+    public void update(String credential, Endpoint endpoint, TwitterResponse response) {
+        if (response != null)
+            update(credential, endpoint, response.getRateLimitStatus());
+    }
+
+    /**
+     * Syncs a bucket with the rate limit status of a failed call. If the rate limit was exceeded, the bucket is
+     * emptied even if Twitter didn't say when it resets.
+     *
+     * @param credential The name of the credential the call was made with.
+     * @param endpoint The API method called.
+     * @param e The exception thrown by the call.
+     */
+    public synchronized void update(String credential, Endpoint endpoint, TwitterException e) {
+        Bucket bucket = buckets.get(key(credential, endpoint));
+        update(credential, endpoint, e.getRateLimitStatus());
+        if (bucket != null && e.exceededRateLimitation())
+            bucket.remaining = 0;
+    }
+
+    /**
+     * Syncs a bucket with a rate limit status.
+     *
+     * @param credential The name of the credential the call was made with.
+     * @param endpoint The API method called.
+     * @param status The rate limit status. Ignored if <code>null</code>.
+     */
+    private synchronized void update(String credential, Endpoint endpoint, RateLimitStatus status) {
+        Bucket bucket = buckets.get(key(credential, endpoint));
+        if (bucket == null || status == null)
+            return;
+        bucket.limit = status.getLimit();
+        bucket.remaining = status.getRemaining();
+        bucket.reset = System.currentTimeMillis() + (long)status.getSecondsUntilReset() * MILLISECONDS_IN_A_SECOND;
+        notifyAll(); // The window may end sooner than the waiting threads thought
+    }
+
+    /**
+     * Returns the key of a credential and API method's bucket.
+     *
+     * @param credential The name of the credential.
+     * @param endpoint The API method.
+     * @return The bucket's key.
+     */
+    private static String key(String credential, Endpoint endpoint) {
+        return credential + "-" + endpoint;
+    }
+}
@@ -0,0 +1,202 @@
+package create_sample;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Decides which monitored tweets are refreshed in each 15 minute period. Tweets whose retweets keep coming in as fast
+ * or faster are refreshed every period, while the ones that are slowing down or have stopped are refreshed less
+ * often, doubling the wait each time. A tweet that has stopped is always refreshed in time to tell when it's dead.
+ * The periods a tweet isn't refreshed in are filled in by {@link MonitoredStatus#addObservation(int, double, int)}.
+ *
+ * Refreshes wait in a {@link TimingWheel} until they're due, so each period only costs as much as the tweets due in
+ * it, however many are monitored. Then they wait in a queue, most overdue first, and among those the fastest tweets
+ * first, so when there aren't enough calls to refresh every tweet that's due, the ones left wait for the next
+ * period. Inactive tweets are never scheduled past the period they'd die in, so their refreshes double as the
+ * inactivity checks that move them to the dead monitor.
+ *
+ * @author José Parada
+ * @version 1.0
+ * @see SampleCreator
+ */
+public class RefreshScheduler {
+    private static final int WHEEL_LEVELS = 2; // Enough for 4096 periods ahead
+    private final int periodsToDie;
+    private final TimingWheel<Refresh> wheel; // Refreshes that aren't due yet
+    private final ArrayDeque<Refresh> due; // Refreshes that are due, in the order they'll be done
+    private long period; // Current period, counted from when the scheduler was created
+
+    /**
+     * A refresh of a monitored tweet, due in a certain period.
+     */
+    public static class Refresh implements Comparable<Refresh> {
+        private final MonitoredStatus tweet;
+        private final long due, observed; // Period the refresh is due, period of the tweet's last observation
+        private final int interval; // Periods between the last refresh and this one
+
+        /**
+         * Constructor.
+         *
+         * @param tweet The monitored tweet.
+         * @param due The period the refresh is due.
+         * @param observed The period of the tweet's last observation.
+         * @param interval The periods between the last refresh and this one.
+         */
+        private Refresh(MonitoredStatus tweet, long due, long observed, int interval) {
+            this.tweet = tweet;
+            this.due = due;
+            this.observed = observed;
+            this.interval = interval;
+        }
+
+        /**
+         * Returns the tweet to refresh.
+         *
+         * @return The monitored tweet.
+         */
+        public MonitoredStatus getTweet() {
+            return tweet;
+        }
+
+        /**
+         * Orders refreshes by the period they're due, and then by how often their tweets are refreshed.
+         *
+         * @param other The refresh to compare this refresh against.
+         * @return A negative number if this refresh goes first, a positive one if it goes last.
+         */
+        public int compareTo(Refresh other) {
+            if (due != other.due)
+                return due < other.due ? -1 : 1;
+            return interval - other.interval;
+        }
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param periodsToDie Inactive periods after which a tweet is considered dead.
+     */
+    public RefreshScheduler(int periodsToDie) {
+        this.periodsToDie = periodsToDie;
+        period = 0;
+        wheel = new TimingWheel<Refresh>(WHEEL_LEVELS, period);
+        due = new ArrayDeque<Refresh>();
+    }
+
+    /**
+     * Starts the next period. The refreshes due in it go after the ones that are still overdue.
+     */
+    public void advance() {
+        List<Refresh> batch = wheel.advance();
+        period++;
+        Collections.sort(batch); // Fastest tweets first
+        due.addAll(batch);
+    }
+
+    /**
+     * Schedules a tweet that was just observed for the first time. It's refreshed in the next period.
+     *
+     * @param tweet The new monitored tweet.
+     */
+    public void add(MonitoredStatus tweet) {
+        add(tweet, 1);
+    }
+
+    /**
+     * Schedules a tweet that was last observed some time ago, like one recovered from a previous run. It's refreshed
+     * in the next period, and that observation covers every period since the last one.
+     *
+     * @param tweet The monitored tweet.
+     * @param periods The periods its next observation covers, at least 1.
+     */
+    public void add(MonitoredStatus tweet, int periods) {
+        schedule(new Refresh(tweet, period + 1, period + 1 - periods, 1));
+    }
+
+    /**
+     * Removes the refreshes that are due in this period.
+     *
+     * @param max The maximum amount of refreshes to remove. The rest stay due.
+     * @return The refreshes, most overdue first.
+     */
+    public List<Refresh> poll(int max) {
+        List<Refresh> polled = new ArrayList<Refresh>();
+        while (polled.size() < max && !due.isEmpty())
+            polled.add(due.poll());
+        return polled;
+    }
+
+    /**
+     * Returns the periods since a refresh's tweet was last observed.
+     *
+     * @param refresh A refresh that's due.
+     * @return The periods the tweet's next observation covers.
+     */
+    public int periodsSince(Refresh refresh) {
+        return (int)(period - refresh.observed);
+    }
+
+    /**
+     * Schedules a tweet's next refresh after it's been observed. Tweets that got retweets as fast or faster than
+     * before are refreshed in the next period. Otherwise the wait doubles, up to <code>periodsToDie</code>
+     * periods, or the periods the tweet has left to die if it's inactive.
+     *
+     * @param refresh The refresh that was just done.
+     */
+    public void observed(Refresh refresh) {
+        int interval = nextInterval(refresh.tweet, refresh.interval, periodsSince(refresh));
+        schedule(new Refresh(refresh.tweet, period + interval, period, interval));
+    }
+
+    /**
+     * Schedules a refresh that couldn't be done again for the next period.
+     *
+     * @param refresh The refresh that couldn't be done.
+     */
+    public void retry(Refresh refresh) {
+        schedule(new Refresh(refresh.tweet, period + 1, refresh.observed, refresh.interval));
+    }
+
+    /**
+     * Returns the amount of scheduled tweets.
+     *
+     * @return The amount of tweets waiting to be refreshed.
+     */
+    public int size() {
+        return wheel.size() + due.size();
+    }
+
+    /**
+     * Puts a refresh in the wheel until the period it's due.
+     *
+     * @param refresh The refresh.
+     */
+    private void schedule(Refresh refresh) {
+        wheel.schedule(refresh, refresh.due);
+    }
+
+    /**
+     * Works out the periods until a tweet's next refresh from its last observations.
+     *
+     * @param tweet The monitored tweet.
+     * @param lastInterval The periods between its last two refreshes.
+     * @param periods The periods its last observation covered.
+     * @return The periods until its next refresh.
+     */
+    private int nextInterval(MonitoredStatus tweet, int lastInterval, int periods) {
+        IntSeries counts = tweet.getRetweetCount();
+        int inactive = tweet.getInactivePeriods(), last = counts.size() - 1;
+        double rate, previousRate;
+        if (inactive > 0) // Back off, but come back in time to tell whether it's dead
+            return Math.max(1, Math.min(2 * lastInterval, periodsToDie - inactive));
+        if (last - periods < 1) // Not enough observations to tell
+            return 1;
+        rate = (double)(counts.get(last) - counts.get(last - periods)) / periods;
+        previousRate = counts.get(last - periods) - counts.get(last - periods - 1);
+        if (rate >= previousRate) // As fast or faster
+            return 1;
+        return Math.min(2 * lastInterval, periodsToDie);
+    }
+}
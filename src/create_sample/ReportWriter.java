@@ -0,0 +1,151 @@
+package create_sample;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.util.Date;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Prints monitored tweets to a report file through a single buffered stream, opened once for the whole monitor, so
+ * printing a large monitor is one sequential write. Reports can be human readable text, like
+ * {@link MonitoredStatus#printTo(PrintWriter)}, or one JSON object per line, and can be compressed with gzip.
+ *
+ * @author José Parada
+ * @version 1.0
+ * @see MonitoredStatus
+ */
+public class ReportWriter {
+    private static final int BUFFER_SIZE = 65536;
+    private static final String CHARSET = "UTF-8";
+    private static final String TEXT_EXTENSION = ".txt";
+    private static final String GZIP_EXTENSION = ".gz";
+    private final Format format;
+    private PrintWriter writer;
+    private int written;
+
+    /**
+     * The formats a report can be printed in.
+     */
+    public enum Format {
+        /** Each tweet's characteristics on their own lines, numbered, after the date the report was printed. */
+        TEXT(".txt"),
+        /** Each tweet as a JSON object on its own line. */
+        JSON_LINES(".jsonl");
+
+        private final String extension;
+
+        /**
+         * Constructor.
+         *
+         * @param extension The extension of report files in this format.
+         */
+        private Format(String extension) {
+            this.extension = extension;
+        }
+
+        /**
+         * Returns the extension of report files in this format.
+         *
+         * @return The extension, with its dot.
+         */
+        public String getExtension() {
+            return extension;
+        }
+    }
+
+    /**
+     * Constructor. Creates a report file, replacing any previous file with the same name.
+     *
+     * @param file The file the report will be printed to.
+     * @param format The format of the report.
+     * @param gzip Whether the report will be compressed with gzip.
+     * @throws IOException
+     */
+    public ReportWriter(File file, Format format, boolean gzip) throws IOException {
+        OutputStream out = new FileOutputStream(file);
+        if (gzip)
+            out = new GZIPOutputStream(out, BUFFER_SIZE);
+        this.format = format;
+        writer = new PrintWriter(new BufferedWriter(new OutputStreamWriter(out, CHARSET), BUFFER_SIZE));
+        written = 0;
+        if (format == Format.TEXT)
+            writer.println(new Date());
+    }
+
+    /**
+     * Prints every tweet in a monitor to a report file.
+     *
+     * @param monitor The monitored tweets.
+     * @param file The file the report will be printed to.
+     * @param format The format of the report.
+     * @param gzip Whether the report will be compressed with gzip.
+     * @throws IOException
+     */
+    public static void writeAll(Iterable<MonitoredStatus> monitor, File file, Format format, boolean gzip)
+            throws IOException {
+        ReportWriter writer = new ReportWriter(file, format, gzip);
+        try {
+            for (MonitoredStatus tweet : monitor)
+                writer.write(tweet);
+        } finally {
+            writer.close();
+        }
+    }
+
+    /**
+     * Returns the name a report file has in a format. The .txt extension of the name is replaced by the format's, and
+     * .gz is added if the report is compressed.
+     *
+     * @param file The report file's name as a text report.
+     * @param format The format of the report.
+     * @param gzip Whether the report will be compressed with gzip.
+     * @return The report file.
+     */
+    public static File fileFor(File file, Format format, boolean gzip) {
+        String name = file.getPath();
+        if (name.endsWith(TEXT_EXTENSION))
+            name = name.substring(0, name.length() - TEXT_EXTENSION.length());
+        return new File(name + format.getExtension() + (gzip ? GZIP_EXTENSION : ""));
+    }
+
+    /**
+     * Prints a tweet to the report.
+     *
+     * @param tweet The monitored tweet.
+     */
+    public void write(MonitoredStatus tweet) {
+        written++;
+        if (format == Format.TEXT) {
+            writer.println(written);
+            tweet.printTo(writer);
+            writer.println();
+        } else {
+            tweet.printJsonTo(writer);
+        }
+    }
+
+    /**
+     * Returns the amount of tweets printed so far.
+     *
+     * @return The amount of tweets in the report.
+     */
+    public int getWritten() {
+        return written;
+    }
+
+    /**
+     * Flushes and closes the report file.
+     *
+     * @throws IOException If anything printed to the report couldn't be written.
+     */
+    public void close() throws IOException {
+        writer.close();
+        if (writer.checkError())
+            throw new IOException("Method: close. Could not write the report.");
+    }
+}
@@ -0,0 +1,232 @@
+package create_sample;
+
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.util.Arrays;
+
+import twitter4j.User;
+
+/**
+ * The users who retweeted a tweet, kept as their indexes in the shared {@link UserRegistry}, which has their IDs and
+ * follower counts, all we read from them. The indexes are kept in an open addressing hash table of primitives.
+ *
+ * Indexes only mean something inside the process, so the retweeters' IDs and follower counts are serialized
+ * instead, and registered again when read.
+ *
+ * @author José Parada
+ * @version 1.0
+ * @see MonitoredStatus
+ */
+public class RetweeterSet implements Serializable {
+    private static final long serialVersionUID = 2L;
+    private static final int INITIAL_CAPACITY = 8; // Must be a power of two
+    private static final int FREE = 0; // Slots hold index + 1, so 0 marks a free slot
+    private static final int HASH_MULTIPLIER = 0x9E3779B9; // Spreads sequential indexes across the table
+    private transient int[] slots;
+    private transient int size;
+
+    /**
+     * Constructor. Creates an empty set.
+     */
+    public RetweeterSet() {
+        slots = new int[INITIAL_CAPACITY];
+        size = 0;
+    }
+
+    /**
+     * Adds a retweeter that was just fetched from Twitter, if it isn't in the set already. Their follower count is
+     * refreshed in the registry either way.
+     *
+     * @param user The retweeter.
+     * @return True if the retweeter was added, false if it was already in the set.
+     */
+    public boolean add(User user) {
+        return add(UserRegistry.getShared().intern(user));
+    }
+
+    /**
+     * Adds a retweeter, if it isn't in the set already.
+     *
+     * @param index The retweeter's index in the shared registry.
+     * @return True if the retweeter was added, false if it was already in the set.
+     */
+    public boolean add(int index) {
+        int slot;
+        if (2 * (size + 1) > slots.length) // Keep the table at most half full
+            resize(slots.length * 2);
+        slot = find(slots, index);
+        if (slots[slot] != FREE)
+            return false;
+        slots[slot] = index + 1;
+        size++;
+        return true;
+    }
+
+    /**
+     * Returns whether a user retweeted the tweet.
+     *
+     * @param id The user's ID.
+     * @return True if the user is in the set, false otherwise.
+     */
+    public boolean contains(long id) {
+        int index = UserRegistry.getShared().indexOf(id);
+        return index >= 0 && slots[find(slots, index)] != FREE;
+    }
+
+    /**
+     * Returns the amount of followers a retweeter has.
+     *
+     * @param id The retweeter's ID.
+     * @return The amount of followers, or -1 if the user isn't in the set.
+     */
+    public int getFollowers(long id) {
+        return contains(id) ? UserRegistry.getShared().getFollowers(UserRegistry.getShared().indexOf(id)) : -1;
+    }
+
+    /**
+     * Returns the amount of retweeters in the set.
+     *
+     * @return The size of the set.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns whether the set is empty.
+     *
+     * @return True if there are no retweeters, false otherwise.
+     */
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Returns a copy of the set, which doesn't change when retweeters are added to this one.
+     *
+     * @return A new set with the same retweeters.
+     */
+    public RetweeterSet copy() {
+        RetweeterSet copy = new RetweeterSet();
+        copy.slots = slots.clone();
+        copy.size = size;
+        return copy;
+    }
+
+    /**
+     * Returns the IDs of every retweeter, in the same order as {@link #getFollowerCounts()}.
+     *
+     * @return A new array with the retweeters' IDs.
+     */
+    public long[] getIds() {
+        UserRegistry registry = UserRegistry.getShared();
+        long[] result = new long[size];
+        int i = 0;
+        for (int slot : slots) {
+            if (slot != FREE) {
+                result[i] = registry.getId(slot - 1);
+                i++;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Returns the follower counts of every retweeter, in the same order as {@link #getIds()}.
+     *
+     * @return A new array with the retweeters' follower counts.
+     */
+    public int[] getFollowerCounts() {
+        UserRegistry registry = UserRegistry.getShared();
+        int[] result = new int[size];
+        int i = 0;
+        for (int slot : slots) {
+            if (slot != FREE) {
+                result[i] = registry.getFollowers(slot - 1);
+                i++;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Returns the IDs of every retweeter, separated by commas.
+     *
+     * @return The retweeters' IDs.
+     */
+    @Override
+    public String toString() {
+        return Arrays.toString(getIds());
+    }
+
+    /**
+     * Finds the slot of an index, or the free slot where it would go.
+     *
+     * @param table The table of indexes.
+     * @param index The index.
+     * @return The slot's position in the table.
+     */
+    private static int find(int[] table, int index) {
+        int mask = table.length - 1, slot = ((index + 1) * HASH_MULTIPLIER >>> 16) & mask;
+        while (table[slot] != FREE && table[slot] != index + 1)
+            slot = (slot + 1) & mask;
+        return slot;
+    }
+
+    /**
+     * Moves every retweeter to a table of a different capacity.
+     *
+     * @param capacity The new capacity. Must be a power of two.
+     */
+    private void resize(int capacity) {
+        int[] old = slots;
+        slots = new int[capacity];
+        for (int slot : old) {
+            if (slot != FREE)
+                slots[find(slots, slot - 1)] = slot;
+        }
+    }
+
+    /**
+     * Writes the amount of retweeters and then each retweeter's ID and follower count.
+     *
+     * @param out The stream to write to.
+     * @throws IOException
+     */
+    private void writeObject(ObjectOutputStream out) throws IOException {
+        long[] ids = getIds();
+        int[] followers = getFollowerCounts();
+        out.defaultWriteObject();
+        out.writeInt(size);
+        for (int i = 0; i < size; i++) {
+            out.writeLong(ids[i]);
+            out.writeInt(followers[i]);
+        }
+    }
+
+    /**
+     * Reads a set written by {@link #writeObject(ObjectOutputStream)}, registering its retweeters. Their follower
+     * counts don't replace any the registry already has.
+     *
+     * @param in The stream to read from.
+     * @throws IOException
+     * @throws ClassNotFoundException
+     */
+    private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+        UserRegistry registry = UserRegistry.getShared();
+        int count, capacity = INITIAL_CAPACITY;
+        long id;
+        in.defaultReadObject();
+        count = in.readInt();
+        while (2 * count > capacity)
+            capacity *= 2;
+        slots = new int[capacity];
+        size = 0;
+        for (int i = 0; i < count; i++) {
+            id = in.readLong();
+            add(registry.intern(id, in.readInt(), 0));
+        }
+    }
+}
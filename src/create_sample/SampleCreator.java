@@ -1,24 +1,19 @@
 package create_sample;
 
-import java.io.BufferedInputStream;
-import java.io.BufferedOutputStream;
 import java.io.BufferedReader;
 import java.io.BufferedWriter;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileNotFoundException;
-import java.io.FileOutputStream;
 import java.io.FileWriter;
 import java.io.IOException;
 import java.io.InputStreamReader;
-import java.io.ObjectInputStream;
-import java.io.ObjectOutputStream;
 import java.io.PrintWriter;
-import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Date;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
 import java.util.LinkedList;
@@ -26,6 +21,8 @@ import java.util.List;
 import java.util.PriorityQueue;
 import java.util.Scanner;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Future;
 
 import twitter4j.IDs;
 import twitter4j.Paging;
@@ -35,11 +32,9 @@ import twitter4j.ResponseList;
 import twitter4j.Status;
 import twitter4j.Twitter;
 import twitter4j.TwitterException;
-import twitter4j.TwitterFactory;
 import twitter4j.TwitterStream;
 import twitter4j.TwitterStreamFactory;
 import twitter4j.User;
-import twitter4j.conf.ConfigurationBuilder;
 import edu.uci.ics.jung.graph.DirectedSparseGraph;
 import edu.uci.ics.jung.graph.util.Pair;
 
@@ -54,55 +49,132 @@ public final class SampleCreator {
     private static final int MAX_STREAMED = 18000; // 18000 max due to status lookup rate limit
     private static final int MAX_CYCLES = 40;
     private static final int MAX_LOOKUP_SIZE = 100; // Size of the Twitter API Status Lookup method response
+    private static final int PIPELINE_LOOKUPS = MAX_STREAMED / MAX_LOOKUP_SIZE; // Lookup calls kept for new tweets
     private static final int MIN_RETWEETS = 2; // Minimum amount of retweets necessary to monitor a tweet
-    private static final int GET_FOLLOWERS_APP_LIMIT = 15; // Max amount of calls to getFollowersIDs in 15 minutes through app auth
-    private static final int GET_FOLLOWERS_USER_LIMIT = 15; // Max amount of calls to getFollowersIDs in 15 minutes through user auth
-    private static final int GET_RETWEETS_USER_LIMIT = 15; // Max amount of calls to getRetweets in 15 minutes through user auth
-    private static final int GET_RETWEETS_APP_LIMIT = 60; // Max amount of calls to getRetweets in 15 minutes through app auth
-    private static final int GET_RETWEETERS_USER_LIMIT = 15; // Max amount of calls to getRetweeterIDs in 15 minutes through user auth
-    private static final int GET_RETWEETERS_APP_LIMIT = 60; // Max amount of calls to getRetweeterIDs in 15 minutes through app auth
-    // Max amount of calls to getRetweeter functions in 15 minutes
-    private static final int MAX_MONITORED = GET_RETWEETS_USER_LIMIT + GET_RETWEETS_APP_LIMIT + GET_RETWEETERS_USER_LIMIT + GET_RETWEETERS_APP_LIMIT; 
+    private static final int MAX_FOLLOWER_PAGES = 30; // Pages of 5000 followers fetched per user
     private static final int MILLISECONDS_IN_A_SECOND = 1000;
+    private static final long NANOSECONDS_IN_A_MILLISECOND = 1000000;
     private static final long FIFTEEN_MINUTES = 900000;
-    private static final long ONE_SECOND = 1000;
-    private static final long TWO_SECONDS = 2000;
+    private static final long RECONNECT_WAIT = 60000; // Milliseconds to wait after a connection error
+    private static final int STREAM_BUFFER_SIZE = 8192; // Tweets the stream can get ahead of us before dropping them
+    private static final int API_LANE_THREADS = 4; // Calls each credential can make to the same API method at once
+    private static final long API_TIMEOUT = 300000; // Milliseconds to wait for a group of API calls before cancelling them
+    private static final long USER_REFRESH_AGE = 86400000; // Milliseconds before a retweeter's follower count is looked up again
+    private static final int CLASSIFY_CACHE_SIZE = 65536; // Texts whose classification is remembered
+    private static final long CLASSIFY_CACHE_AGE = 21600000; // Milliseconds a text's classification is remembered for
     // Amount of 15 minute blocks without retweets before tweet is delcared dead
     private static final int PERIODS_TO_DIE = 4; 
-    private static final String[] POSITIVE_EMOTICONS = {":-)", ":)", ";)", ";-)", ":D", ":-D"};
-    private static final String[] NEGATIVE_EMOTICONS = {":(", ":-(", "D:", "D-:", ";_;"}; 
+    static final String[] POSITIVE_EMOTICONS = {":-)", ":)", ";)", ";-)", ":D", ":-D"};
+    static final String[] NEGATIVE_EMOTICONS = {":(", ":-(", "D:", "D-:", ";_;"}; 
     private static final File SAVED_SENTIMENT_CLASSIFIER = new File("SentimentClassifier.txt");
     private static final File SAVED_TOPIC_CLASSIFIER = new File("TopicClassifier.txt");
-    private static final File MONITOR_PROGRESS = new File("MonitorProgress.ser");
-    private static final File DEAD_MONITOR_PROGRESS = new File("DeadMonitorProgress.ser");
+    private static final File MONITOR_SNAPSHOT = new File("MonitorSnapshot.mon");
+    private static final File MONITOR_JOURNAL = new File("MonitorJournal.log");
     private static final File PRINTED_MONITOR_PROGRESS = new File("MonitorProgress.txt");
     private static final File PRINTED_DEAD_MONITOR_PROGRESS = new File("DeadMonitorProgress.txt");
-    private static final File MONITOR_FINAL = new File("MonitorFinal.ser");
-    private static final File DEAD_MONITOR_FINAL = new File("DeadMonitorFinal.ser");
+    private static final File MONITOR_FINAL = new File("MonitorFinal.mon");
+    private static final File DEAD_MONITOR_FINAL = new File("DeadMonitorFinal.mon");
     private static final File PRINTED_MONITOR_FINAL = new File("MonitorFinal.txt");
     private static final File PRINTED_DEAD_MONITOR_FINAL = new File("DeadMonitorFinal.txt");
-    private static final File CLUSTERING_PROGRESS = new File("ClusterProgress.ser");
+    private static final File CLUSTERING_PROGRESS = new File("ClusterProgress.mon");
     private static final File CLUSTERING_PROGRESS_NUMBER = new File("ClusterProgress.txt");
-    private static final File DIFFUSION_PROGRESS = new File("DiffusionProgress.ser");
+    private static final File DIFFUSION_PROGRESS = new File("DiffusionProgress.mon");
     private static final File DIFFUSION_PROGRESS_NUMBER = new File("DiffusionProgress.txt");
     private static final File CLASSIFIER_FILE = new File("SampleForClassifier.txt");
     private static final String CLUSTER_DIR = "MCL";
+    private static final String RECORD_PROPERTY = "sample.record"; // File to record the streamed tweets to
+    private static final String REPLAY_PROPERTY = "sample.replay"; // File to replay streamed tweets from
+    private static final String REPLAY_SPEED_PROPERTY = "sample.replaySpeed"; // 1 is wall-clock, 0 is as fast as possible
+    private static final String OFFLINE_PROPERTY = "sample.offline"; // Replay without calling the Twitter API
+    private static final String CREDENTIALS_PROPERTY = "sample.credentials"; // File with the keys of every credential
+    private static final String CREDENTIALS_FILE = "credentials.properties";
+    private static final String REPORT_FORMAT_PROPERTY = "sample.reportFormat"; // "text" or "jsonl"
+    private static final String REPORT_GZIP_PROPERTY = "sample.reportGzip"; // Compress the printed monitors
+    private static final String METRICS_PORT_PROPERTY = "sample.metricsPort"; // Port the metrics are served on
+    private static final String DUMP_MONITORS_PROPERTY = "sample.dumpMonitors"; // Print the monitors to console
     
-    private static int findFollowersRate = 0, getRetweetsRate = 0, secondsStreamed = 0;
-    private static Twitter twitter, userAuth, appAuth;
+    private static Twitter twitter;
     private static PriorityQueue<Long> checkedRetweetedTweets = new PriorityQueue<Long>();
+    private static StatusRecorder recorder;
+    private static StatusReplayer replayer;
+    private static RateLimiter limiter;
+    private static CredentialPool pool;
+    private static ApiExecutor api;
+    private static MonitorJournal journal;
+    private static CheckpointWriter checkpoints;
+    private static ClassifierPool classifiers;
+    private static ReportWriter.Format reportFormat = ReportWriter.Format.TEXT;
+    private static boolean reportGzip = false;
+    private static boolean offline = false;
+    private static boolean dumpMonitors = false;
+    private static MetricsServer metricsServer;
+    private static final Metrics.Counter deaths = Metrics.getShared().counter("sample_monitor_deaths_total",
+            "Monitored statuses that stopped getting retweets.");
+    private static final Metrics.Counter deletions = Metrics.getShared().counter("sample_monitor_deletions_total",
+            "Monitored statuses that were deleted.");
     
     /**
      * Downloads a large sample of tweets from the Streaming API every 15 minutes, keeps track of these tweets over 
      * time, and prints them into a text file so the classifiers can read it. 
      * 
-     * After establishing a connection to Twitter using the credentials found in twitter4j.properties, a sample of 
+     * After establishing a connection to Twitter using every credential in the {@link CredentialPool}, a sample of 
      * tweets is downloaded every 15 minutes. The tweets that get a certain amount of retweets in the first 15 minutes
      * since being written are put in a monitor using the MonitoredStatus class, and their characteristics are updated 
      * every 15 minutes. After a certain number of cycles, the monitors are stored in text files, their files for MCL 
      * clustering are created and the depth of their diffusion trees is set. Finally, the monitor gets printed into a 
      * text file our Python scripts will read to feed the classifiers.
      * 
+     * Streamed tweets go through a {@link SamplePipeline} while they're being streamed, so their lookups and 
+     * classification overlap with the stream. The tweets it finishes are added to the monitor at the start of the
+     * next cycle.
+     * 
+     * API calls run concurrently on an {@link ApiExecutor}, with a lane for each credential and API method. A 
+     * {@link RateLimiter} keeps track of the calls each lane has left, and each call goes to the credential with 
+     * the most calls left to its API method. The credentials are read from the file in the 
+     * <code>sample.credentials</code> system property, credentials.properties by default, or from 
+     * twitter4j.properties if it doesn't exist.
+     * 
+     * Monitored tweets aren't all refreshed every cycle. A {@link RefreshScheduler} refreshes the ones whose 
+     * retweets are still speeding up every cycle, and backs off from the rest, within the calls the credentials have 
+     * left.
+     * 
+     * Progress is saved every cycle by appending what changed to a {@link MonitorJournal}. If the program is
+     * restarted before it finishes, the monitors are rebuilt from the journal and monitoring picks up where it left
+     * off. Once the final monitors are saved, the journal is deleted. Progress is written and printed by a 
+     * {@link CheckpointWriter} on its own thread, from a copy of the monitors, so the loop never waits on the disk.
+     * 
+     * The stream can be recorded and replayed through the same loop, to reproduce a cycle or measure the loop's 
+     * throughput. The following system properties control this:
+     * <ul>
+     * <li> <code>sample.record</code>: File where every streamed tweet will be recorded.
+     * <li> <code>sample.replay</code>: File with recorded tweets that will be replayed instead of the Streaming API.
+     * <li> <code>sample.replaySpeed</code>: How many times faster than recorded the tweets will be replayed. 1 by
+     * default. 0 replays them as fast as possible.
+     * <li> <code>sample.offline</code>: If true, a replay won't call the Twitter API at all. Recorded tweets are used
+     * as their own lookups, no retweeters are fetched, the monitor isn't updated and there's no rate limit sleep.
+     * Since streamed tweets were just posted and have no retweets yet, the minimum amount of retweets isn't required
+     * either, so every recorded tweet in English is monitored.
+     * </ul>
+     * 
+     * The printed monitors are written by a {@link ReportWriter}. These system properties control their format:
+     * <ul>
+     * <li> <code>sample.reportFormat</code>: <code>text</code>, the default, or <code>jsonl</code> for one JSON object
+     * per tweet and line, in .jsonl files.
+     * <li> <code>sample.reportGzip</code>: If true, the printed monitors are compressed, in .gz files.
+     * </ul>
+     * 
+     * Each phase of the loop is measured in the shared {@link Metrics}: the stream's intake, lookups, API calls and
+     * their errors by endpoint, classification, the monitors' size, deaths and checkpoints. These system properties
+     * control how they're seen:
+     * <ul>
+     * <li> <code>sample.metricsPort</code>: Port the metrics are served on by a {@link MetricsServer}, in the
+     * Prometheus text format at http://localhost:port/metrics. Not served by default.
+     * <li> <code>sample.dumpMonitors</code>: If true, every monitored tweet is also printed to console after each
+     * checkpoint, as it used to be.
+     * </ul>
+     * When running under Java Flight Recorder, API calls, classifications, follower pages and diffusion graphs are
+     * also recorded as events, in the Retweet Classifier category.
+     * 
      * @param args Unused.
      * @throws ClassNotFoundException
      * @throws InterruptedException
@@ -114,19 +186,92 @@ public final class SampleCreator {
         // Don't want the Twitter4J logger cluttering up the console
         System.setProperty("twitter4j.loggerFactory", "twitter4j.NullLoggerFactory");
         
-        // Connect to Twitter
+        // Set up recording or replaying of the stream
         try {
-            twitter = connectionSetup();
-        } catch (TwitterException e) {
-            System.out.println("Fatal: Could not connect to Twitter.");
+            if (System.getProperty(REPLAY_PROPERTY) != null) {
+                replayer = new StatusReplayer(new File(System.getProperty(REPLAY_PROPERTY)), 
+                        Double.parseDouble(System.getProperty(REPLAY_SPEED_PROPERTY, "1")));
+                offline = Boolean.getBoolean(OFFLINE_PROPERTY);
+            } else if (System.getProperty(RECORD_PROPERTY) != null) {
+                recorder = new StatusRecorder(new File(System.getProperty(RECORD_PROPERTY)));
+            }
+        } catch (IOException e) {
+            System.out.println("Fatal: Could not open the stream record or replay file.");
             throw e;
         }
         
+        if ("jsonl".equals(System.getProperty(REPORT_FORMAT_PROPERTY)))
+            reportFormat = ReportWriter.Format.JSON_LINES;
+        reportGzip = Boolean.getBoolean(REPORT_GZIP_PROPERTY);
+        dumpMonitors = Boolean.getBoolean(DUMP_MONITORS_PROPERTY);
+        
+        // Serve the metrics
+        if (System.getProperty(METRICS_PORT_PROPERTY) != null) {
+            try {
+                metricsServer = new MetricsServer(Integer.parseInt(System.getProperty(METRICS_PORT_PROPERTY)));
+                System.out.println("Serving metrics on port " + metricsServer.getPort() + ".");
+            } catch (IOException e) {
+                System.out.println("Fatal: Could not serve the metrics.");
+                throw e;
+            }
+        }
+        
+        // Connect to Twitter
+        if (!offline) {
+            try {
+                limiter = new RateLimiter();
+                pool = CredentialPool.load(new File(System.getProperty(CREDENTIALS_PROPERTY, CREDENTIALS_FILE)), limiter);
+                twitter = connectionSetup();
+                api = new ApiExecutor(API_LANE_THREADS, limiter);
+                System.out.println("Connected with " + pool.getCredentials().size() + " credentials.");
+            } catch (IOException e) {
+                System.out.println("Fatal: Could not read the credentials file.");
+                throw e;
+            } catch (TwitterException e) {
+                System.out.println("Fatal: Could not connect to Twitter.");
+                throw e;
+            }
+        }
+        
         HashSet<MonitoredStatus> monitor = new HashSet<MonitoredStatus>(), dead = new HashSet<MonitoredStatus>();
-        LinkedList<Status> newSample = new LinkedList<Status>();
+        List<MonitoredStatus> added = new ArrayList<MonitoredStatus>();
+        RefreshScheduler scheduler = new RefreshScheduler(PERIODS_TO_DIE);
+        SamplePipeline pipeline;
         boolean finished = false;
-        int cycles = 0;
-        long toSleep;
+        int cycles, replayed;
+        long toSleep, cycleStarted, phaseStarted, now;
+        Metrics metrics = Metrics.getShared();
+        Metrics.Gauge monitorSize = metrics.gauge("sample_monitor_statuses", "Statuses in the monitors.", "monitor", 
+                "alive"), deadSize = metrics.gauge("sample_monitor_statuses", "Statuses in the monitors.", "monitor", "dead");
+        Metrics.Counter cycleCount = metrics.counter("sample_cycles_total", "Sampling cycles completed.");
+        Metrics.Histogram cycleTime = metrics.histogram("sample_cycle_seconds", 
+                "Time taken by a sampling cycle, without the sleep until the next one.");
+        
+        // Pick up where a previous run left off
+        journal = new MonitorJournal(MONITOR_SNAPSHOT, MONITOR_JOURNAL, PERIODS_TO_DIE);
+        try {
+            replayed = journal.recover(monitor, dead);
+        } catch (IOException e) {
+            System.out.println("Fatal: Could not read the monitor snapshot or journal.");
+            throw e;
+        }
+        cycles = journal.getCyclesDone();
+        now = System.currentTimeMillis();
+        for (MonitoredStatus tweet : monitor) // Their next observations cover the periods we were down
+            scheduler.add(tweet, (int)Math.max(1, 
+                    Math.round((double)(now - tweet.getLastObservedMillis()) / FIFTEEN_MINUTES)));
+        if (!monitor.isEmpty() || !dead.isEmpty())
+            System.out.println("Recovered " + monitor.size() + " monitored and " + dead.size() + " dead statuses after " 
+                    + cycles + " cycles, replaying " + replayed + " cycles from the journal.");
+        checkpoints = new CheckpointWriter(journal, new CheckpointWriter.Reporter() {
+            public void report(List<MonitoredStatus> monitor, List<MonitoredStatus> dead) throws IOException {
+                if (dumpMonitors)
+                    printMonitors(monitor, dead);
+                printMonitorToFile(monitor, PRINTED_MONITOR_PROGRESS);
+                printMonitorToFile(dead, PRINTED_DEAD_MONITOR_PROGRESS);
+            }
+        });
+        checkpoints.start();
         
         // Load the classifiers
         SentimentClassifier sentimentClassifier = null;
@@ -141,61 +286,118 @@ public final class SampleCreator {
             System.out.println("Fatal: Could not read topic or sentiment classifier file.");
             throw e;
         }
+        classifiers = new ClassifierPool(sentimentClassifier, topicClassifier, Runtime.getRuntime().availableProcessors(),
+                new ClassificationCache(CLASSIFY_CACHE_SIZE, CLASSIFY_CACHE_AGE));
+        pipeline = new SamplePipeline(MAX_LOOKUP_SIZE, classifiers);
+        pipeline.start();
 
         // Create the sample
         while (!finished) {
-            // Update the tweets
-            updateMonitor(monitor, dead);
+            cycleStarted = System.nanoTime();
+            scheduler.advance();
+            
+            // Update the tweets that are due
+            if (!offline) {
+                try {
+                    phaseStarted = System.nanoTime();
+                    updateMonitor(monitor, dead, scheduler);
+                    metrics.histogram("sample_phase_seconds", "Time taken by each phase of a cycle.", "phase", 
+                            "update").observeSince(phaseStarted);
+                } catch (InterruptedException e) {
+                    System.out.println("Fatal: Monitor update interrupted.");
+                    throw e;
+                } catch (IOException e) {
+                    System.out.println("Fatal: Could not write to the monitor journal.");
+                    throw e;
+                }
+            }
 
-            // Add previous sample
+            // Add the tweets the pipeline has finished
             try {
-                addSampleToMonitor(monitor, newSample, sentimentClassifier, topicClassifier);
-            } catch (TwitterException e) {
-                System.out.println("Fatal: Status Lookup failed.");
+                added.clear();
+                System.out.println("Added " + pipeline.drainTo(added) + " statuses to the monitor.");
+                monitor.addAll(added);
+                for (MonitoredStatus tweet : added) {
+                    scheduler.add(tweet);
+                    journal.added(tweet);
+                }
+            } catch (IOException e) {
+                System.out.println("Fatal: Could not write to the monitor journal.");
                 throw e;
             }
 
-            printMonitors(monitor, dead);
-
             // Get new sample
             try {
-            	newSample = streamTweets(MAX_STREAMED);
+                phaseStarted = System.nanoTime();
+            	streamTweets(MAX_STREAMED, pipeline);
+                metrics.histogram("sample_phase_seconds", "Time taken by each phase of a cycle.", "phase", 
+                        "stream").observeSince(phaseStarted);
             } catch (InterruptedException e) {
-                System.out.println("Fatal: Stream sleep interrupted.");
+                System.out.println("Fatal: Stream wait interrupted.");
                 throw e;
             }
 
             try {
+                journal.cycleDone(cycles + 1);
             	saveMonitorProgress(monitor, dead);
             } catch (IOException e) {
             	System.out.println("Fatal: Could not write to monitor progress files.");
             	throw e;
             }
+            classifiers.getCache().evictOld();
+            monitorSize.set(monitor.size());
+            deadSize.set(dead.size());
+            cycleTime.observeSince(cycleStarted);
+            cycleCount.increment();
 
-            // End after a number of cycles
-            if (cycles == MAX_CYCLES) {
+            // End after a number of cycles, or once a replay has run out of tweets
+            if (cycles == MAX_CYCLES || (replayer != null && replayer.isExhausted())) {
                 finished = true;
             }
 
-            // Refresh rate limit window
-            if (!finished) {
+            // Wait for the next period
+            if (!finished && !offline) {
                 try {
                 	System.out.println("Cycle done: " + cycles);
-                	toSleep = FIFTEEN_MINUTES - (secondsStreamed * MILLISECONDS_IN_A_SECOND);
+                	toSleep = FIFTEEN_MINUTES - (System.nanoTime() - cycleStarted) / NANOSECONDS_IN_A_MILLISECOND;
                 	if (toSleep > 0) {
-                		System.out.println("Sleeping " + toSleep + " ms to refresh rate limit.");
+                		System.out.println("Sleeping " + toSleep + " ms until the next period.");
                     	System.out.println(new Date());
                 		Thread.sleep(toSleep);
                 	}
-                    getRetweetsRate = 0;
                 } catch (InterruptedException e) {
-                    System.out.println("Fatal: Rate limit refresh sleep interrupted.");
+                    System.out.println("Fatal: Period sleep interrupted.");
                     throw e;
                 }
             }
             
             cycles++;
         }
+        pipeline.shutdown();
+        classifiers.shutdown();
+        try {
+            checkpoints.close();
+        } catch (InterruptedException e) {
+            System.out.println("Fatal: Wait for the last checkpoint interrupted.");
+            throw e;
+        } catch (IOException e) {
+            System.out.println("Fatal: Could not write to monitor progress files.");
+            throw e;
+        }
+        
+        try {
+            if (recorder != null) {
+                System.out.println("Recorded " + recorder.getRecorded() + " statuses.");
+                recorder.close();
+            }
+            if (replayer != null) {
+                System.out.println("Replayed " + replayer.getReplayed() + " statuses.");
+                replayer.close();
+            }
+        } catch (IOException e) {
+            System.out.println("Fatal: Could not close the stream record or replay file.");
+            throw e;
+        }
 
         // Save monitors
         LinkedList<MonitoredStatus> orderedMonitor = turnSetIntoLinkedList(monitor);
@@ -207,6 +409,14 @@ public final class SampleCreator {
         	System.out.println("Fatal: Could not write to monitor final files.");
         	throw e;
         }
+        try {
+            journal.delete();
+        } catch (IOException e) {
+            System.out.println("Fatal: Could not delete the monitor snapshot or journal.");
+            throw e;
+        }
+        if (metricsServer != null)
+            metricsServer.stop();
         /*
         // Make files for clustering and calculate diffusion graphs
         LinkedList<MonitoredStatus> orderedDead = readMonitorFinalFile(DEAD_MONITOR_FINAL);
@@ -226,7 +436,7 @@ public final class SampleCreator {
         	System.out.println("Starting diffusion depths.");
         	startDiffusionTreeDepths(orderedDead);
         	System.out.println("Diffusion depths finished.");
-        	saveObjectToFile(orderedDead, DEAD_MONITOR_FINAL);
+        	MonitorWriter.writeAll(orderedDead, DEAD_MONITOR_FINAL);
         	printMonitorToFile(orderedDead, PRINTED_DEAD_MONITOR_FINAL);
         } catch (InterruptedException e) {
         	System.out.println("Fatal: Sleep to refresh findFollowers interrupted.");
@@ -251,6 +461,8 @@ public final class SampleCreator {
         	throw e;
         }
         
+        if (api != null)
+            api.shutdown();
         System.out.println("Finished.");
     }
     
@@ -260,112 +472,302 @@ public final class SampleCreator {
     private SampleCreator() { }
     
     /**
-     * Establishes the connection to Twitter and sets our two authorization methods so that other methods can access
-     * the Twitter API.
+     * Establishes the connection to Twitter for every credential in the pool so that other methods can access the 
+     * Twitter API.
      * 
-     * @return The user authorization object, which is the first we need to use in the main method.
+     * @return The first credential's Twitter object, for the calls that aren't spread out among the credentials.
      * @throws TwitterException
      */
     private static Twitter connectionSetup() throws TwitterException {
-        userAuth = TwitterFactory.getSingleton();
-        ConfigurationBuilder builder;
-        builder = new ConfigurationBuilder();
-        builder.setApplicationOnlyAuthEnabled(true);
-        appAuth = new TwitterFactory(builder.build()).getInstance();
-        appAuth.getOAuth2Token();
-        return userAuth;
+        pool.connect();
+        return pool.getDefault();
     }
     
     /**
-     * Updates our two monitors. One is updated every 15 minutes with all of its tweet's characteristics, the other 
-     * saves our tweets once they've stopped getting retweets.
+     * Updates our two monitors. One is updated with the characteristics of the tweets the scheduler says are due, 
+     * the other saves our tweets once they've stopped getting retweets. No more tweets are refreshed than there are 
+     * lookup calls left, after keeping the ones the pipeline needs for this cycle's streamed tweets, and the rest wait
+     * for the next cycle. Tweets whose new retweeters there are no calls left to find are observed without them. The
+     * tweets are looked up <code>MAX_LOOKUP_SIZE</code> at a time, and every batch is looked up at once. Tweets 
+     * missing from the lookups have been deleted, and are removed from the monitor. Then the retweeters of every tweet that got new 
+     * retweets are fetched at once. If a lookup fails, its batch is retried in the next cycle. If the calls time out,
+     * the tweets that haven't been updated yet are too.
      * 
      * @param monitor A set of monitored tweets that are still getting retweets.
      * @param dead A set of monitored tweets that are no longer getting retweets.
+     * @param scheduler The scheduler that decides when each monitored tweet is refreshed.
+     * @throws InterruptedException
+     * @throws IOException If the changes can't be added to the monitor journal.
+     * @see ApiExecutor
      */
-    private static void updateMonitor(HashSet<MonitoredStatus> monitor, HashSet<MonitoredStatus> dead) {
+    private static void updateMonitor(HashSet<MonitoredStatus> monitor, HashSet<MonitoredStatus> dead, 
+            RefreshScheduler scheduler) throws InterruptedException, IOException {
+        List<RefreshScheduler.Refresh> due, fetching = new ArrayList<RefreshScheduler.Refresh>();
+        List<MonitoredStatus> tweets = new ArrayList<MonitoredStatus>();
+        List<Future<List<Status>>> lookups = new ArrayList<Future<List<Status>>>();
+        List<Future<int[]>> fetches = new ArrayList<Future<int[]>>();
+        Future<int[]> fetch;
+        List<List<Status>> lookedUp;
+        List<int[]> retweeters = new ArrayList<int[]>();
+        HashMap<Long, Status> found = new HashMap<Long, Status>();
+        HashSet<MonitoredStatus> skipped = new HashSet<MonitoredStatus>(), observed = new HashSet<MonitoredStatus>();
         MonitoredStatus tweet;
         Status updated;
-        Iterator<MonitoredStatus> iMonitor;
-        List<User> retweeters;
         
-        iMonitor = monitor.iterator();
-        while (iMonitor.hasNext()) {
-            tweet = (MonitoredStatus)iMonitor.next();
-            try {
-                updated = twitter.showStatus(tweet.getId());
-                retweeters = getSomeRetweeters(updated, updated.getRetweetCount() - tweet.getRetweetCount().peekLast());
-                for (User u : retweeters)
-                    tweet.getRetweeters().add(u);
-                tweet.addObservation(updated.getRetweetCount(), getRetweetLikelihood(updated, retweeters));
-                if (tweet.getInactivePeriods() == PERIODS_TO_DIE) { // Inactive for an hour
-                    dead.add(tweet);
-                    iMonitor.remove();
+        // Leave the pipeline the lookups it needs for the tweets streamed this cycle
+        due = scheduler.poll(Math.max(0, pool.remaining(Endpoint.LOOKUP) - PIPELINE_LOOKUPS) * MAX_LOOKUP_SIZE);
+        System.out.println("Refreshing " + due.size() + " of " + (scheduler.size() + due.size()) + " statuses.");
+        for (RefreshScheduler.Refresh refresh : due)
+            tweets.add(refresh.getTweet());
+        try {
+            for (int i = 0; i < tweets.size(); i += MAX_LOOKUP_SIZE)
+                lookups.add(submitLookup(tweets.subList(i, Math.min(i + MAX_LOOKUP_SIZE, tweets.size()))));
+            lookedUp = api.awaitAll(lookups, API_TIMEOUT);
+            for (int i = 0; i < lookedUp.size(); i++) {
+                if (lookedUp.get(i) == null) { // Lookup failed
+                    skipped.addAll(tweets.subList(i * MAX_LOOKUP_SIZE, Math.min((i + 1) * MAX_LOOKUP_SIZE, tweets.size())));
+                } else {
+                    for (Status status : lookedUp.get(i))
+                        found.put(status.getId(), status);
                 }
-            } catch (TwitterException e) { // Tweet deleted
-                iMonitor.remove();
             }
+            for (RefreshScheduler.Refresh refresh : due) {
+                tweet = refresh.getTweet();
+                if (skipped.contains(tweet))
+                    continue;
+                updated = found.get(tweet.getId());
+                if (updated == null) { // Tweet deleted
+                    monitor.remove(tweet);
+                    journal.removed(tweet);
+                    deletions.increment();
+                } else if (updated.getRetweetCount() > tweet.getRetweetCount().getLast()
+                        && (fetch = submitSomeRetweeters(updated, updated.getRetweetCount() - tweet.getRetweetCount().getLast())) != null) {
+                    fetching.add(refresh);
+                    fetches.add(fetch);
+                } else { // No new retweets, or no calls left to find them
+                    observe(tweet, updated, new int[0], scheduler.periodsSince(refresh), monitor, dead);
+                    observed.add(tweet);
+                }
+            }
+            retweeters = api.awaitAll(fetches, API_TIMEOUT);
+        } catch (TwitterException e) {
+            System.out.println("Method: updateMonitor. " + e.getMessage() + " Skipping the rest of this update.");
+            fetching.clear();
+        }
+        for (int i = 0; i < fetching.size(); i++) {
+            tweet = fetching.get(i).getTweet();
+            observe(tweet, found.get(tweet.getId()), retweeters.get(i), scheduler.periodsSince(fetching.get(i)), monitor, dead);
+            observed.add(tweet);
+        }
+        for (RefreshScheduler.Refresh refresh : due) { // Dead and deleted tweets aren't scheduled again
+            if (!monitor.contains(refresh.getTweet()))
+                continue;
+            if (observed.contains(refresh.getTweet()))
+                scheduler.observed(refresh);
+            else
+                scheduler.retry(refresh);
         }
     }
     
     /**
-     * Checks the tweets that were streamed, and, if they have a certain amount of retweets, adds them to the monitor.
-     * This method ignores all streamed tweets that were actually retweets.
+     * Submits a status lookup for a batch of monitored tweets.
      * 
-     * @param monitor A set of monitored tweets.
-     * @param newSample A list of tweets streamed from Twitter's Streaming API.
-     * @param sentimentClassifier A sentiment classifier, for classifying the tweet text's sentiment.
-     * @param topicClassifier A topic classifier, for classifying the tweet text's topic.
-     * @throws TwitterException
+     * @param batch The monitored tweets to look up. No more than <code>MAX_LOOKUP_SIZE</code>.
+     * @return The pending lookup. Its result is <code>null</code> if the lookup failed.
      */
-    private static void addSampleToMonitor(HashSet<MonitoredStatus> monitor, LinkedList<Status> newSample, 
-            SentimentClassifier sentimentClassifier, TopicClassifier topicClassifier) throws TwitterException {
-        long[] ids;
-        int i, lookupUpperLimit;
+    private static Future<List<Status>> submitLookup(List<MonitoredStatus> batch) {
+        final long[] ids = new long[batch.size()];
+        int i = 0;
+        for (MonitoredStatus tweet : batch) {
+            ids[i] = tweet.getId();
+            i++;
+        }
+        final String credential = pool.pick(Endpoint.LOOKUP);
+        return api.submit(credential, Endpoint.LOOKUP, new Callable<List<Status>>() {
+            public List<Status> call() throws TwitterException {
+                try {
+                    return pool.get(credential).lookup(ids);
+                } catch (TwitterException e) {
+                    System.out.println("Method: submitLookup. Status Lookup failed, skipping " + ids.length + " statuses.");
+                    throw e;
+                }
+            }
+        }, null);
+    }
+    
+    /**
+     * Adds an observation to a monitored tweet, and moves it to the dead monitor if it's stopped getting retweets.
+     * 
+     * @param tweet The monitored tweet.
+     * @param updated The tweet's current state.
+     * @param retweeters The registry indexes of the tweet's new retweeters.
+     * @param periods The periods since the tweet's last observation.
+     * @param monitor A set of monitored tweets that are still getting retweets.
+     * @param dead A set of monitored tweets that are no longer getting retweets.
+     * @throws IOException If the observation can't be added to the monitor journal.
+     */
+    private static void observe(MonitoredStatus tweet, Status updated, int[] retweeters, int periods, 
+            HashSet<MonitoredStatus> monitor, HashSet<MonitoredStatus> dead) throws IOException {
+        double likelihood = getRetweetLikelihood(updated, retweeters);
+        long now = System.currentTimeMillis();
+        journal.observed(tweet, retweeters, updated.getRetweetCount(), likelihood, periods, now);
+        for (int index : retweeters)
+            tweet.getRetweeters().add(index);
+        tweet.addObservation(updated.getRetweetCount(), likelihood, periods, now);
+        if (tweet.getInactivePeriods() >= PERIODS_TO_DIE) { // Inactive for an hour
+            dead.add(tweet);
+            monitor.remove(tweet);
+            journal.died(tweet);
+            deaths.increment();
+        }
+    }
+    
+    /**
+     * Looks up the current state of a batch of streamed tweets. When replaying offline, the tweets are returned as 
+     * they were streamed instead.
+     * 
+     * @param batch The tweets to look up. No more than <code>MAX_LOOKUP_SIZE</code>.
+     * @return The tweets that were found.
+     * @throws InterruptedException
+     * @throws TwitterException If the lookup failed or timed out.
+     */
+    static List<Status> lookupSample(List<Status> batch) throws InterruptedException, TwitterException {
+        if (offline)
+            return batch;
+        final long[] ids = new long[batch.size()];
+        int i = 0;
+        for (Status status : batch) {
+            ids[i] = status.getId();
+            i++;
+        }
+        final String credential = pool.pick(Endpoint.LOOKUP);
+        return api.call(credential, Endpoint.LOOKUP, new Callable<List<Status>>() {
+            public List<Status> call() throws TwitterException {
+                return pool.get(credential).lookup(ids);
+            }
+        }, API_TIMEOUT);
+    }
+    
+    /**
+     * Looks up the current state of a single tweet, through the credential with the most calls left to showStatus.
+     * 
+     * @param id The tweet's ID.
+     * @return The tweet.
+     * @throws InterruptedException
+     * @throws TwitterException If the tweet was deleted, or the call failed or timed out.
+     */
+    private static Status showStatus(final long id) throws InterruptedException, TwitterException {
+        final String credential = pool.pick(Endpoint.SHOW_STATUS);
+        return api.call(credential, Endpoint.SHOW_STATUS, new Callable<Status>() {
+            public Status call() throws TwitterException {
+                return pool.get(credential).showStatus(id);
+            }
+        }, API_TIMEOUT);
+    }
+    
+    /**
+     * Returns whether a looked up tweet should be monitored. We monitor tweets in English that have a certain amount
+     * of retweets, while there are still calls left to find their retweeters. When replaying offline, the tweets 
+     * weren't looked up, so their retweets are those they had when streamed, almost always none, and any tweet in 
+     * English is monitored.
+     * 
+     * @param status The looked up tweet.
+     * @return True if the tweet should be monitored, false otherwise.
+     */
+    static boolean isMonitorable(Status status) {
+        if (offline)
+            return "en".equals(status.getLang());
+        return "en".equals(status.getLang()) && status.getRetweetCount() >= MIN_RETWEETS && retweeterCallsLeft() > 0;
+    }
+    
+    /**
+     * Returns the calls left in the current rate limit windows to find retweeters with. Grows with the amount of 
+     * credentials in the pool.
+     * 
+     * @return The calls left to getRetweets and getRetweeterIds, through every credential.
+     */
+    private static int retweeterCallsLeft() {
+        return pool.remaining(Endpoint.RETWEETS) + pool.remaining(Endpoint.RETWEETER_IDS);
+    }
+    
+    /**
+     * Starts monitoring a batch of looked up tweets. Finds their characteristics and their first retweeters, and 
+     * makes their first observation. The retweeters of the whole batch are fetched concurrently and waited for 
+     * once. If there are no calls left to find a tweet's retweeters, or the fetches fail, its first observation 
+     * has none.
+     * 
+     * @param statuses The looked up tweets.
+     * @param sentiments The sentiment of each tweet's text, in the same order as the tweets.
+     * @param topics The topic of each tweet's text, in the same order as the tweets.
+     * @return The new monitored tweets, in the same order as the looked up ones.
+     * @throws InterruptedException
+     * @see SentimentClassifier
+     * @see TopicClassifier
+     * @see #submitSomeRetweeters(Status, int)
+     */
+    static List<MonitoredStatus> startMonitoring(List<Status> statuses, String[] sentiments, String[] topics) 
+            throws InterruptedException {
+        List<MonitoredStatus> added = new ArrayList<MonitoredStatus>(statuses.size());
+        List<Future<int[]>> fetches = new ArrayList<Future<int[]>>();
+        List<Integer> fetching = new ArrayList<Integer>();
+        List<int[]> fetched;
+        int[][] retweeters = new int[statuses.size()][];
+        Future<int[]> fetch;
         MonitoredStatus addedTweet;
-        ResponseList<Status> updatedSample;
-        List<User> retweeters;
+        Status status;
         
-        ids = new long[newSample.size()];
-        i = 0;
-        for (Status status: newSample) {
-            if (!status.isRetweet()) { // Skip retweets
-                ids[i] = status.getId();
-                i++;
+        for (int i = 0; i < statuses.size(); i++) {
+            status = statuses.get(i);
+            if (offline || status.getRetweetCount() <= 0)
+                continue;
+            fetch = submitSomeRetweeters(status, status.getRetweetCount());
+            if (fetch == null) {
+                System.out.println("Method: startMonitoring. No calls left to find retweeters.");
+                continue;
             }
+            fetches.add(fetch);
+            fetching.add(i);
         }
-        ids = Arrays.copyOfRange(ids, 0, i); // Shortens ids to account for skipped retweets
-        
-        i = 0;
-        while (i * MAX_LOOKUP_SIZE < ids.length) {
-            if ((i + 1) * MAX_LOOKUP_SIZE > ids.length) {
-                lookupUpperLimit = ids.length;
+        try {
+            fetched = api.awaitAll(fetches, API_TIMEOUT);
+            for (int i = 0; i < fetched.size(); i++)
+                retweeters[fetching.get(i)] = fetched.get(i);
+        } catch (TwitterException e) {
+            System.out.println("Method: startMonitoring. " + e.getMessage());
+        }
+        for (int i = 0; i < statuses.size(); i++) {
+            status = statuses.get(i);
+            addedTweet = new MonitoredStatus(status.getId(), status.getText(), status.getCreatedAt(),
+                    (status.getUserMentionEntities().length > 0) && status.getText().startsWith("@"), 
+                    status.getUserMentionEntities().length > 0, status.getHashtagEntities().length > 0, 
+                    status.getText().contains("http://") || status.getText().contains("https://"), status.getText().contains("!"), 
+                    status.getText().contains("?"), containsArray(status.getText(), POSITIVE_EMOTICONS), 
+                    containsArray(status.getText(), NEGATIVE_EMOTICONS), status.getUser().getFollowersCount(), 
+                    sentiments[i], topics[i]);
+            if (status.getRetweetCount() > 0) {
+                if (retweeters[i] == null)
+                    retweeters[i] = new int[0];
+                for (int index : retweeters[i])
+                    addedTweet.getRetweeters().add(index);
+                addedTweet.addObservation(status.getRetweetCount(), getRetweetLikelihood(status, retweeters[i]));
             } else {
-                lookupUpperLimit = (i + 1) * MAX_LOOKUP_SIZE;
+                addedTweet.addObservation(0, 0);
             }
-            updatedSample = twitter.lookup(Arrays.copyOfRange(ids, i * MAX_LOOKUP_SIZE, lookupUpperLimit));
-            for (Status status: updatedSample) {
-                if (status.getLang().equals("en") && status.getRetweetCount() >= MIN_RETWEETS && getRetweetsRate < MAX_MONITORED) {
-                    addedTweet = new MonitoredStatus(status.getId(), status.getText(), status.getCreatedAt(),
-                            (status.getUserMentionEntities().length > 0) && status.getText().startsWith("@"), 
-                            status.getUserMentionEntities().length > 0, status.getHashtagEntities().length > 0, 
-                            status.getText().contains("http://") || status.getText().contains("https://"), status.getText().contains("!"), 
-                            status.getText().contains("?"), containsArray(status.getText(), POSITIVE_EMOTICONS), 
-                            containsArray(status.getText(), NEGATIVE_EMOTICONS), status.getUser().getFollowersCount(), 
-                            sentimentClassifier.classify(status.getText()), topicClassifier.classify(status.getText()));
-                    if (status.getRetweetCount() > 0) {
-                        retweeters = getSomeRetweeters(status, status.getRetweetCount());
-                        for (User u : retweeters)
-                            addedTweet.getRetweeters().add(u);
-                        addedTweet.addObservation(status.getRetweetCount(), getRetweetLikelihood(status, retweeters));
-                    } else {
-                        addedTweet.addObservation(0, 0);
-                    }
-                    monitor.add(addedTweet);
-                }
-            }
-            i++;
+            added.add(addedTweet);
         }
+        return added;
+    }
+    
+    /**
+     * Prints how many tweets per second a part of the sampling loop went through.
+     * 
+     * @param what What was done with the tweets.
+     * @param count The amount of tweets.
+     * @param milliseconds How long it took.
+     */
+    private static void printThroughput(String what, int count, long milliseconds) {
+        System.out.println(what + " " + count + " statuses in " + milliseconds + " ms (" + 
+                (milliseconds > 0 ? count * MILLISECONDS_IN_A_SECOND / milliseconds : count) + " statuses/s).");
     }
     
     /**
@@ -376,16 +778,18 @@ public final class SampleCreator {
      * @param newSample A list of tweets streamed from Twitter's Streaming API.
      * @param sentimentClassifier A sentiment classifier, for classifying the tweet text's sentiment.
      * @param topicClassifier A topic classifier, for classifying the tweet text's topic.
+     * @throws InterruptedException
      * @throws TwitterException
      */
     @SuppressWarnings("unused")
     private static void addSampleToMonitorWithRetweets(HashSet<MonitoredStatus> monitor, LinkedList<Status> newSample, 
-            SentimentClassifier sentimentClassifier, TopicClassifier topicClassifier) throws TwitterException {
+            SentimentClassifier sentimentClassifier, TopicClassifier topicClassifier) 
+            throws InterruptedException, TwitterException {
         long[] ids;
         int i, lookupUpperLimit;
         MonitoredStatus addedTweet;
         ResponseList<Status> updatedSample;
-        List<User> retweeters;
+        int[] retweeters;
         Iterator<Status> iSample;
         LinkedList<Status> replace;
         Status tweet, originalTweet;
@@ -435,8 +839,8 @@ public final class SampleCreator {
                             sentimentClassifier.classify(status.getText()), topicClassifier.classify(status.getText()));
                     if (status.getRetweetCount() > 0) {
                         retweeters = getSomeRetweeters(status, status.getRetweetCount());
-                        for (User u : retweeters)
-                            addedTweet.getRetweeters().add(u);
+                        for (int index : retweeters)
+                            addedTweet.getRetweeters().add(index);
                         addedTweet.addObservation(status.getRetweetCount(), getRetweetLikelihood(status, retweeters));
                     } else {
                         addedTweet.addObservation(0, 0);
@@ -454,7 +858,7 @@ public final class SampleCreator {
      * @param monitor A set of monitored tweets that are still getting retweets.
      * @param dead A set of monitored tweets that are no longer getting retweets.
      */
-    private static final void printMonitors(HashSet<MonitoredStatus> monitor, HashSet<MonitoredStatus> dead) {
+    private static final void printMonitors(Collection<MonitoredStatus> monitor, Collection<MonitoredStatus> dead) {
         int tweetNumber = 1;
         System.out.println("Printing monitors.");
         for (MonitoredStatus status: monitor) {
@@ -475,40 +879,18 @@ public final class SampleCreator {
         System.out.println("Finished printing monitors.");
     }
     
-    /**
-     * Reads a monitor stored in a progress file. Monitor progress files are generated each monitor loop so that 
-     * monitoring can resume where it left off in case of fatal failure.
-     * 
-     * @param file The monitor progress file.
-     * @return The monitor stored in the file.
-     * @throws ClassNotFoundException
-     * @throws IOException
-     */
-    @SuppressWarnings("unused")
-    private static HashSet<MonitoredStatus> readMonitorProgressFile(File file) throws ClassNotFoundException, IOException {
-        ObjectInputStream input = new ObjectInputStream(new BufferedInputStream(new FileInputStream(file)));
-        @SuppressWarnings("unchecked") // The file should contain a HashSet<MonitoredStatus>.
-        HashSet<MonitoredStatus> monitor = (HashSet<MonitoredStatus>)input.readObject();
-        input.close();
-        return monitor;
-    }
-    
     /**
      * Reads a monitor stored in a final file. Monitor final files are generated when the monitor has finished its
      * appointed cycles, so that other methods can use the data gathered.
      * 
      * @param file The monitor final file.
      * @return The monitor stored in the file.
-     * @throws ClassNotFoundException
      * @throws IOException
+     * @see MonitorReader
      */
     @SuppressWarnings("unused")
-    private static LinkedList<MonitoredStatus> readMonitorFinalFile(File file) throws ClassNotFoundException, IOException {
-        ObjectInputStream input = new ObjectInputStream(new BufferedInputStream(new FileInputStream(file)));
-        @SuppressWarnings("unchecked") // The file should contain a HashSet<MonitoredStatus>.
-        LinkedList<MonitoredStatus> monitor = (LinkedList<MonitoredStatus>)input.readObject();
-        input.close();
-        return monitor;
+    private static LinkedList<MonitoredStatus> readMonitorFinalFile(File file) throws IOException {
+        return MonitorReader.readAll(file);
     }
 
     /**
@@ -554,7 +936,7 @@ public final class SampleCreator {
             }
             statList = followerStats(tweet.getRetweeters(), tweet.getRetweetCount(), tweet.getRetweetLikelihood(), tweet.getFollowerNumber());
             followerStats = statList.remove();
-            output.println(tweet.getRetweetCount().peekLast() + " " + clusters + " "  + tweet.getTreeDepth() + " " + tweet.getFollowerNumber() + " " + 
+            output.println(tweet.getRetweetCount().getLast() + " " + clusters + " "  + tweet.getTreeDepth() + " " + tweet.getFollowerNumber() + " " + 
                     tweet.isDirect() + " " + tweet.hasMention() + " " + tweet.isExclamation() + " " + tweet.hasHashtag() + " " + tweet.hasNegativeEmoticon() + " " + tweet.hasPositiveEmoticon() + 
                     " " + tweet.isQuestion() + " " + tweet.hasURL() + " " + tweet.getSentiment() + " " + tweet.getTopic() + " " + followerStats[0] + " " + followerStats[1] + 
                     " " + followerStats[2] + " " + tweet.getRetweetCount().size());
@@ -590,26 +972,24 @@ public final class SampleCreator {
      * </ul>
      * Where we consider views to be the amount of people that had this tweet shown in their timeline.
      * 
-     * @param users
+     * @param retweeters
      * @param retweets
      * @param likelihood
      * @param authorFollowers
      * @return A list with several statistics of a tweet's retweet history.
      */
-    private static LinkedList<double[]> followerStats(HashSet<User> users, LinkedList<Integer> retweets, LinkedList<Double> likelihood, int authorFollowers) {
+    static LinkedList<double[]> followerStats(RetweeterSet retweeters, IntSeries retweets, DoubleSeries likelihood, int authorFollowers) {
         LinkedList<double[]> result = new LinkedList<double[]>();
         double finalStats[] = new double[3], retweetHistory[] = new double[retweets.size()], retweetDelta[] = new double[retweets.size()], 
         		likelihoodHistory[] = new double[retweets.size()], likelihoodDelta[] = new double[retweets.size()], viewsHistory[] = new double[retweets.size()], 
         		viewsDelta[] = new double[retweets.size()], prevLikelihood = 0, prevAvg = 0, avgHistory[] = new double[retweets.size()], 
         		avgDelta[] = new double[retweets.size()];
         int index = 0, prevRetweets = 0, prevViews = 0;
-        Iterator<Integer> iRetweets = retweets.iterator();
-        Iterator<Double> iLikelihood = likelihood.iterator();
-        while (iRetweets.hasNext()) {
-            retweetHistory[index] = iRetweets.next();
+        while (index < retweets.size()) {
+            retweetHistory[index] = retweets.get(index);
             retweetDelta[index] = retweetHistory[index] - prevRetweets;
             prevRetweets = (int)retweetHistory[index];
-            likelihoodHistory[index] = iLikelihood.next();
+            likelihoodHistory[index] = likelihood.get(index);
             if (Double.isInfinite(likelihoodHistory[index]))
                 likelihoodHistory[index] = 0;
             likelihoodDelta[index] = likelihoodHistory[index] - prevLikelihood;
@@ -631,12 +1011,12 @@ public final class SampleCreator {
         }
         finalStats[0] = authorFollowers;
         finalStats[2] = authorFollowers;
-        for (User u: users) {
-            finalStats[0] += u.getFollowersCount();
-            if (finalStats[2] < u.getFollowersCount())
-                finalStats[2] = u.getFollowersCount();
+        for (int followers : retweeters.getFollowerCounts()) {
+            finalStats[0] += followers;
+            if (finalStats[2] < followers)
+                finalStats[2] = followers;
         }
-        finalStats[1] = finalStats[0] / (users.size() + 1);
+        finalStats[1] = finalStats[0] / (retweeters.size() + 1);
         result.add(finalStats);
         result.add(retweetHistory);
         result.add(retweetDelta);
@@ -680,7 +1060,7 @@ public final class SampleCreator {
      * to resume making the MCL files where we left off.
      * @throws InterruptedException
      * @throws IOException
-     * @see #getRetweeterFollowerGraph(User, HashSet)
+     * @see #getRetweeterFollowerGraph(User, RetweeterSet)
      */
     private static void makeFilesForClustering(LinkedList<MonitoredStatus> originalMonitor, String dir, int startNumber) throws InterruptedException, IOException {	
         Status updatedTweet;
@@ -695,8 +1075,8 @@ public final class SampleCreator {
             try {
                 graph = null;
                 tweet = iMonitor.next();
-                if (tweet.getRetweetCount().peekLast() != 0) {
-                    updatedTweet = twitter.showStatus(tweet.getId());
+                if (tweet.getRetweetCount().getLast() != 0) {
+                    updatedTweet = showStatus(tweet.getId());
                     updatedUser = updatedTweet.getUser();
                     graph = getRetweeterFollowerGraph(updatedUser, tweet.getRetweeters());
                 }
@@ -707,7 +1087,7 @@ public final class SampleCreator {
             } finally {
                 tweetNumber++;
                 iMonitor.remove();
-                saveObjectToFile(monitor, CLUSTERING_PROGRESS);
+                MonitorWriter.writeAll(monitor, CLUSTERING_PROGRESS);
                 PrintWriter writer = new PrintWriter(new BufferedWriter(new FileWriter(CLUSTERING_PROGRESS_NUMBER)));
                 writer.println(tweetNumber);
                 writer.close();
@@ -737,15 +1117,11 @@ public final class SampleCreator {
      * @param dir The name of the directory where the MCL files will be placed.
      * @throws InterruptedException
      * @throws IOException
-     * @throws ClassNotFoundException
      * @see #makeFilesForClustering(LinkedList, String, int)
      */
     @SuppressWarnings("unused")
-    private static void continueFilesForClustering(String dir) throws InterruptedException, IOException, ClassNotFoundException {
-        ObjectInputStream input = new ObjectInputStream(new BufferedInputStream(new FileInputStream(CLUSTERING_PROGRESS)));
-        @SuppressWarnings("unchecked") // There should be a linked list in the file.
-		LinkedList<MonitoredStatus> monitor = (LinkedList<MonitoredStatus>)input.readObject();
-        input.close();
+    private static void continueFilesForClustering(String dir) throws InterruptedException, IOException {
+        LinkedList<MonitoredStatus> monitor = MonitorReader.readAll(CLUSTERING_PROGRESS);
         Scanner scanner = new Scanner(CLUSTERING_PROGRESS_NUMBER);
         int tweetNumber = scanner.nextInt();
         scanner.close();
@@ -768,7 +1144,7 @@ public final class SampleCreator {
         MonitoredStatus tweet;
         while (iMonitor.hasNext()) {
             tweet = iMonitor.next();
-            if (tweet.getRetweetCount().peekLast() != 0) {
+            if (tweet.getRetweetCount().getLast() != 0) {
             	try {
             		makeDiffusionGraph(tweet);
             	} catch (TwitterException e) {
@@ -780,7 +1156,7 @@ public final class SampleCreator {
                 tweet.setTreeDepth(1);
             }
             tweetNumber++;
-            saveObjectToFile(monitor, DIFFUSION_PROGRESS);
+            MonitorWriter.writeAll(monitor, DIFFUSION_PROGRESS);
             PrintWriter writer = new PrintWriter(new BufferedWriter(new FileWriter(DIFFUSION_PROGRESS_NUMBER)));
             writer.println(tweetNumber);
             writer.close();
@@ -806,15 +1182,11 @@ public final class SampleCreator {
      * 
      * @throws InterruptedException
      * @throws IOException
-     * @throws ClassNotFoundException
      * @see #setDiffusionTreeDepths(LinkedList, int)
      */
     @SuppressWarnings("unused")
-    private static void continueDiffusionTreeDepths() throws InterruptedException, IOException, ClassNotFoundException {
-        ObjectInputStream input = new ObjectInputStream(new BufferedInputStream(new FileInputStream(DIFFUSION_PROGRESS)));
-        @SuppressWarnings("unchecked") // There should be a linked list in the file.
-		LinkedList<MonitoredStatus> monitor = (LinkedList<MonitoredStatus>)input.readObject();
-        input.close();
+    private static void continueDiffusionTreeDepths() throws InterruptedException, IOException {
+        LinkedList<MonitoredStatus> monitor = MonitorReader.readAll(DIFFUSION_PROGRESS);
         Scanner scanner = new Scanner(DIFFUSION_PROGRESS_NUMBER);
         int tweetNumber = scanner.nextInt();
         scanner.close();
@@ -828,7 +1200,7 @@ public final class SampleCreator {
      * @param strings The array with the strings that may be contained in the string.
      * @return True if the string contains any of the strings in the array, false otherwise.
      */
-    private static boolean containsArray(String string, String[] strings) {
+    static boolean containsArray(String string, String[] strings) {
         for (int i = 0; i < strings.length; i++)
             if (string.contains(strings[i]))
                 return true;
@@ -836,20 +1208,18 @@ public final class SampleCreator {
     }
 
     /**
-     * Saves both monitors to text files, to be loaded in case a fatal error occurs and we want to resume monitoring 
-     * where we left off.
+     * Takes a checkpoint of both monitors, which commits this cycle's changes to the monitor journal, to be loaded in
+     * case a fatal error occurs and we want to resume monitoring where we left off, and prints both monitors to the
+     * console and to text files. The checkpoint is written in the background.
      * 
      * @param monitor A set of monitored tweets that are still getting retweets.
      * @param dead A set of monitored tweets that are no longer getting retweets.
-     * @throws IOException
+     * @throws IOException If writing a previous checkpoint failed.
+     * @see CheckpointWriter
      */
     private static void saveMonitorProgress(HashSet<MonitoredStatus> monitor, HashSet<MonitoredStatus> dead) throws IOException {
-        System.out.println("Saving monitor progress.");
-        saveObjectToFile(monitor, MONITOR_PROGRESS);
-        saveObjectToFile(dead, DEAD_MONITOR_PROGRESS);
-        printMonitorToFile(monitor, PRINTED_MONITOR_PROGRESS);
-        printMonitorToFile(dead, PRINTED_DEAD_MONITOR_PROGRESS);
-        System.out.println("Progress has been saved.");
+        long checkpoint = checkpoints.submit(monitor, dead);
+        System.out.println("Took checkpoint " + checkpoint + ", " + checkpoints.getCompleted() + " saved so far.");
     }
 
     /**
@@ -861,8 +1231,8 @@ public final class SampleCreator {
      */
     private static void saveFinalMonitors(LinkedList<MonitoredStatus> monitor, LinkedList<MonitoredStatus> dead) throws IOException {
         System.out.println("Saving final monitors.");
-        saveObjectToFile(monitor, MONITOR_FINAL);
-        saveObjectToFile(dead, DEAD_MONITOR_FINAL);
+        MonitorWriter.writeAll(monitor, MONITOR_FINAL);
+        MonitorWriter.writeAll(dead, DEAD_MONITOR_FINAL);
         printMonitorToFile(monitor, PRINTED_MONITOR_FINAL);
         printMonitorToFile(dead, PRINTED_DEAD_MONITOR_FINAL);
         System.out.println("Final monitors have been saved.");
@@ -882,81 +1252,90 @@ public final class SampleCreator {
     }
     
     /**
-     * Saves a serializable object to a text file.
-     * 
-     * @param obj The serializable object to be saved.
-     * @param file The file where we want to save the object.
-     * @throws IOException
-     */
-    private static void saveObjectToFile(Serializable obj, File file) throws IOException {
-        ObjectOutputStream output = new ObjectOutputStream(new BufferedOutputStream(new FileOutputStream(file)));
-        output.writeObject(obj);
-        output.close();
-    }
-    
-    /**
-     * Prints all of a monitor's tweets to a text file.
+     * Prints all of a monitor's tweets to a report file, in one pass. The file's extension changes with the report
+     * format.
      * 
      * @param monitor The monitor which has the tweets we'll print.
-     * @param file The file where the tweets will be printed.
+     * @param file The file where the tweets will be printed, as a text report.
      * @throws IOException
+     * @see ReportWriter
      */
     private static void printMonitorToFile(Iterable<MonitoredStatus> monitor, File file) throws IOException {
-        PrintWriter writer = new PrintWriter(new BufferedWriter(new FileWriter(file)));
-        writer.println(new Date());
-        writer.close();
-        int i = 1;
-        for (MonitoredStatus tweet : monitor) {
-        	writer.println(i);
-            tweet.printToFile(file);
-            i++;
-        }
+        ReportWriter.writeAll(monitor, ReportWriter.fileFor(file, reportFormat, reportGzip), reportFormat, reportGzip);
     }
 
     /**
-     * Streams a list of tweets from Twitter's Streaming API.
+     * Streams a list of tweets from Twitter's Streaming API into the sample pipeline, which processes them while 
+     * they're being streamed. Waits for the listener to signal that it's done, and shuts the stream down as soon as
+     * the limit is hit. If the stream ends first, the old listener is removed before a new one is added, so no tweet
+     * is delivered twice.
      * 
      * @param count The amount of tweets we want streamed.
-     * @return A list of all the tweets that were streamed.
+     * @param pipeline The pipeline the streamed tweets will go through.
+     * @return The amount of tweets that were streamed.
      * @throws InterruptedException
      */
-    private static LinkedList<Status> streamTweets(int count) throws InterruptedException {
+    private static int streamTweets(int count, SamplePipeline pipeline) throws InterruptedException {
+        if (replayer != null)
+            return replayTweets(count, pipeline);
         TwitterStream stream;
         Listener listener;
-        secondsStreamed = 0;
+        long started = System.nanoTime();
+        int streamed = 0, dropped = 0;
         System.out.println("Started streaming.");
-        listener = new Listener(count);
+        listener = new Listener(count, STREAM_BUFFER_SIZE, recorder);
+        pipeline.setSource(listener);
         stream = TwitterStreamFactory.getSingleton();
         stream.addListener(listener);
         stream.sample();
-        while (!listener.limitHit()) {
-        	if (listener.getError()) {
-        		System.out.println("Error on stream. Restarting stream.");
-        		listener = new Listener(count);
-                stream = TwitterStreamFactory.getSingleton();
-                stream.addListener(listener);
-                stream.sample();
-        	}
-        	Thread.sleep(ONE_SECOND);
-        	secondsStreamed++;
+        listener.awaitDone();
+        while (!listener.limitHit()) { // Woken up by an unrecoverable error or the end of the stream
+            System.out.println("Error on stream. Restarting stream.");
+            stream.removeListener(listener); // The pipeline still drains whatever it buffered
+            stream.cleanUp();
+            streamed += listener.getCount();
+            dropped += listener.getDropped();
+            listener = new Listener(count - streamed, STREAM_BUFFER_SIZE, recorder);
+            pipeline.setSource(listener);
+            stream.addListener(listener);
+            stream.sample();
+            listener.awaitDone();
         }
+        stream.removeListener(listener); // The stream is a singleton, the next cycle adds its own listener
         stream.cleanUp();
         stream.shutdown();
-        Thread.sleep(TWO_SECONDS);
+        pipeline.setSource(null);
+        streamed += listener.getCount();
+        dropped += listener.getDropped();
+        if (dropped > 0)
+            System.out.println("Dropped " + dropped + " statuses while streaming.");
+        printThroughput("Streamed", streamed, (System.nanoTime() - started) / NANOSECONDS_IN_A_MILLISECOND);
         System.out.println("Finished streaming.");
-        return listener.getTweets();
+        return streamed;
     }
-
+    
     /**
-     * Sets whether to use user authorization or app authorization for Twitter's API.
+     * Replays a list of tweets from a status log into the sample pipeline instead of streaming them.
      * 
-     * @param auth True if we want to use user authorization, false if we want app authorization.
+     * @param count The amount of tweets we want replayed.
+     * @param pipeline The pipeline the replayed tweets will go through.
+     * @return The amount of tweets that were replayed. Less than <code>count</code> if the log ran out.
+     * @throws InterruptedException
+     * @see StatusReplayer
      */
-    private static void setUserAuth(boolean auth) {
-        if (auth)
-            twitter = userAuth;
-        else
-            twitter = appAuth;
+    private static int replayTweets(int count, SamplePipeline pipeline) throws InterruptedException {
+        Listener listener;
+        long started = System.nanoTime();
+        System.out.println("Started replaying.");
+        listener = new Listener(count, STREAM_BUFFER_SIZE, null);
+        pipeline.setSource(listener);
+        replayer.addListener(listener);
+        replayer.sample();
+        listener.awaitDone();
+        replayer.shutdown();
+        pipeline.setSource(null);
+        printThroughput("Replayed", listener.getCount(), (System.nanoTime() - started) / NANOSECONDS_IN_A_MILLISECOND);
+        return listener.getCount();
     }
 
     /**
@@ -971,16 +1350,14 @@ public final class SampleCreator {
      * @throws TwitterException
      */
     private static DirectedSparseGraph<Long, Pair<Long>> makeDiffusionGraph(MonitoredStatus tweet) throws InterruptedException, TwitterException {
-        int i = 0, treeSize = 0;
-        long[] retweeters = new long[tweet.getRetweeters().size()];
-        for (User user : tweet.getRetweeters()) {
-            retweeters[i] = user.getId();
-            i++;
-        }
+        DiffusionGraphEvent event = new DiffusionGraphEvent();
+        event.begin();
+        int treeSize = 0;
+        long[] retweeters = tweet.getRetweeters().getIds();
         Arrays.sort(retweeters);
         DirectedSparseGraph<Long, Pair<Long>> graph = new DirectedSparseGraph<Long, Pair<Long>>();
         Status updatedTweet;
-        updatedTweet = twitter.showStatus(tweet.getId());
+        updatedTweet = showStatus(tweet.getId());
         long currentUser = updatedTweet.getUser().getId();
         graph.addVertex(currentUser);
         LinkedList<Long> queue = new LinkedList<Long>();
@@ -1014,6 +1391,13 @@ public final class SampleCreator {
             }
         }
         tweet.setTreeDepth(treeSize);
+        if (event.shouldCommit()) {
+            event.tweetId = tweet.getId();
+            event.retweeters = retweeters.length;
+            event.nodes = graph.getVertexCount();
+            event.depth = treeSize;
+            event.commit();
+        }
         return graph;
     }
     
@@ -1022,21 +1406,22 @@ public final class SampleCreator {
      * number of views, where we consider views to be the amount of timelines this tweet has appeared in.
      * 
      * @param tweet The tweet we'll calculate the likelihood for.
-     * @param retweeters The list of users that have retweeted the tweet.
+     * @param retweeters The registry indexes of the users that have retweeted the tweet.
      * @return The tweet's retweet likelihood.
+     * @see UserRegistry
      */
-    private static double getRetweetLikelihood(Status tweet, List<User> retweeters) {
-        if (!retweeters.isEmpty()) {
+    private static double getRetweetLikelihood(Status tweet, int[] retweeters) {
+        if (retweeters.length > 0) {
             int totalFollowers;
-            if (tweet.getRetweetCount() == retweeters.size())
+            if (tweet.getRetweetCount() == retweeters.length)
                 totalFollowers = tweet.getUser().getFollowersCount();
             else
                 totalFollowers = 0;
-            for (User retweeter : retweeters) {
-                totalFollowers += retweeter.getFollowersCount();
+            for (int retweeter : retweeters) {
+                totalFollowers += UserRegistry.getShared().getFollowers(retweeter);
             }
             if (totalFollowers > 0)
-            	return retweeters.size() / (double) totalFollowers;
+            	return retweeters.length / (double) totalFollowers;
             else
             	return 0;
         } else {
@@ -1056,7 +1441,7 @@ public final class SampleCreator {
      * @throws InterruptedException
      * @throws TwitterException
      */
-    private static DirectedSparseGraph<Long, Pair<Long>> getRetweeterFollowerGraph(User author, HashSet<User> retweeters) throws InterruptedException, TwitterException {
+    private static DirectedSparseGraph<Long, Pair<Long>> getRetweeterFollowerGraph(User author, RetweeterSet retweeters) throws InterruptedException, TwitterException {
         DirectedSparseGraph<Long, Pair<Long>> graph = new DirectedSparseGraph<Long, Pair<Long>>();
         LinkedList<Long> followerList = new LinkedList<Long>();
         User current = author;
@@ -1066,14 +1451,14 @@ public final class SampleCreator {
             graph.addVertex(authorFollower);
             graph.addEdge(new Pair<Long>(current.getId(), authorFollower), current.getId(), authorFollower);
         }
-        for (User retweeter : retweeters) {
+        for (long retweeter : retweeters.getIds()) {
             /*System.out.println("Method: getRetweeterFollowerGraph. Retweeters size: " + retweeters.size());
-            System.out.println("Method: getRetweeterFollowerGraph. Retweeter follow count: " + retweeter.getFollowersCount());*/
-            graph.addVertex(retweeter.getId());
-            followerList = findFollowers(retweeter.getId());
+            System.out.println("Method: getRetweeterFollowerGraph. Retweeter follow count: " + retweeters.getFollowers(retweeter));*/
+            graph.addVertex(retweeter);
+            followerList = findFollowers(retweeter);
             for (long follower : followerList) {
                 graph.addVertex(follower);
-                graph.addEdge(new Pair<Long>(retweeter.getId(), follower), retweeter.getId(), follower);
+                graph.addEdge(new Pair<Long>(retweeter, follower), retweeter, follower);
             }
         }
         return graph;
@@ -1103,120 +1488,194 @@ public final class SampleCreator {
      * 
      * @param status The tweet we want to find the retweeters for.
      * @param retweeterCount The maximum amount of retweeters to check back a tweet's retweet history for.
-     * @return A list of the last <code>retweeterCount</code> users or less that retweeted the tweet.
+     * @return The registry indexes of the last <code>retweeterCount</code> users or less that retweeted the tweet.
+     * @throws InterruptedException
+     * @see #submitSomeRetweeters(Status, int)
      */
-    private static List<User> getSomeRetweeters(Status status, int retweeterCount) {
-        Twitter auth;
-        boolean limit;
-        if (getRetweetsRate <= GET_RETWEETS_USER_LIMIT) {
-            auth = userAuth;
-            limit = false;
-        } else if (getRetweetsRate <= GET_RETWEETS_USER_LIMIT + GET_RETWEETS_APP_LIMIT) {
-            auth = appAuth;
-            limit = false;
-        } else if (getRetweetsRate <= GET_RETWEETS_USER_LIMIT + GET_RETWEETS_APP_LIMIT + GET_RETWEETERS_USER_LIMIT) {
-            auth = userAuth;
-            limit = true;
-        } else {
-            auth = appAuth;
-            limit = true;
+    private static int[] getSomeRetweeters(Status status, int retweeterCount) throws InterruptedException {
+        List<Future<int[]>> fetch;
+        if (offline)
+            return new int[0];
+        fetch = new ArrayList<Future<int[]>>(1);
+        fetch.add(submitSomeRetweeters(status, retweeterCount));
+        if (fetch.get(0) == null) {
+            System.out.println("Method: getSomeRetweeters. No calls left to find retweeters.");
+            return new int[0];
         }
-        if (retweeterCount < 0)
-            retweeterCount = 0;
-        if (!limit) { // If calls to getRetweets haven't been exhausted, use getRetweets.
-            try {
-                List<Status> statuses = auth.getRetweets(status.getId());
-                getRetweetsRate++;
-                LinkedList<User> retweeters = new LinkedList<User>();
-                Status tweet;
-                if (statuses.size() < retweeterCount)
-                    retweeterCount = statuses.size();
-                for (int i = 0; i < retweeterCount; i++) {
-                    tweet = statuses.remove(0);
-                    retweeters.add(tweet.getUser());
+        try {
+            return api.awaitAll(fetch, API_TIMEOUT).get(0);
+        } catch (TwitterException e) {
+            System.out.println("Method: getSomeRetweeters. " + e.getMessage());
+            return new int[0];
+        }
+    }
+    
+    /**
+     * Submits a search for some of the last users that have retweeted a given tweet. The call goes to the lane of
+     * the credential with the most calls left to getRetweets, or else to getRetweeterIds once those are exhausted.
+     * The retweeters are added to the shared {@link UserRegistry}. When only their IDs are found, only the ones
+     * the registry doesn't have a recent follower count for are looked up, as a call on their own lane. If there
+     * are no calls left to look them up, the follower counts the registry has are used instead of waiting.
+     * 
+     * @param status The tweet we want to find the retweeters for.
+     * @param retweeterCount The maximum amount of retweeters to check back a tweet's retweet history for.
+     * @return The pending registry indexes of the last <code>retweeterCount</code> users or less that retweeted the 
+     * tweet, or <code>null</code> if there are no calls left in the current rate limit windows.
+     */
+    private static Future<int[]> submitSomeRetweeters(Status status, int retweeterCount) {
+        final long id = status.getId();
+        final int count = Math.max(retweeterCount, 0);
+        final String credential;
+        if (pool.remaining(Endpoint.RETWEETS) > 0) { // If calls to getRetweets haven't been exhausted, use getRetweets.
+            credential = pool.pick(Endpoint.RETWEETS);
+            return api.submit(credential, Endpoint.RETWEETS, new Callable<int[]>() {
+                public int[] call() throws TwitterException {
+                    ResponseList<Status> statuses;
+                    int[] retweeters;
+                    try {
+                        statuses = pool.get(credential).getRetweets(id);
+                    } catch (TwitterException e) {
+                        System.out.println("Method: submitSomeRetweeters. No retweeters for this user.");
+                        throw e;
+                    }
+                    limiter.update(credential, Endpoint.RETWEETS, statuses);
+                    retweeters = new int[Math.min(count, statuses.size())];
+                    for (int i = 0; i < retweeters.length; i++)
+                        retweeters[i] = UserRegistry.getShared().intern(statuses.get(i).getUser());
+                    return retweeters;
                 }
-                return retweeters;
-            } catch (TwitterException e) {
-                System.out.println("Method: getSomeRetweeters. No retweeters for this user.");
-                return new LinkedList<User>();
-            }
-        } else { // If calls to getRetweets have been exhausted, use getRetweeterIds.
-            try {
-                long[] statuses = auth.getRetweeterIds(status.getId(), -1l).getIDs();
-                getRetweetsRate++;
-                ResponseList<User> retweeters = userAuth.lookupUsers(statuses);
-                if (retweeters.size() < retweeterCount)
-                    retweeterCount = retweeters.size();
-                List<User> retweetersList = retweeters.subList(0, retweeterCount);
-                return retweetersList;
-            } catch (TwitterException e) {
-                System.out.println("Method: getSomeRetweeters. No retweeters for this user.");
-                return new LinkedList<User>();
-            }
+            }, new int[0]);
+        } else if (pool.remaining(Endpoint.RETWEETER_IDS) > 0) { // If calls to getRetweets have been exhausted, use getRetweeterIds.
+            credential = pool.pick(Endpoint.RETWEETER_IDS);
+            return api.submit(credential, Endpoint.RETWEETER_IDS, new Callable<int[]>() {
+                public int[] call() throws InterruptedException, TwitterException {
+                    UserRegistry registry = UserRegistry.getShared();
+                    IDs ids;
+                    long[] wanted, missing;
+                    final long[] lookup;
+                    int[] retweeters;
+                    int missingCount = 0, found = 0;
+                    ResponseList<User> lookedUp;
+                    final String lookupCredential;
+                    try {
+                        ids = pool.get(credential).getRetweeterIds(id, -1l);
+                    } catch (TwitterException e) {
+                        System.out.println("Method: submitSomeRetweeters. No retweeters for this user.");
+                        throw e;
+                    }
+                    limiter.update(credential, Endpoint.RETWEETER_IDS, ids);
+                    wanted = Arrays.copyOf(ids.getIDs(), Math.min(count, ids.getIDs().length));
+                    missing = new long[wanted.length];
+                    for (long retweeter : wanted) {
+                        if (registry.indexOfFresh(retweeter, USER_REFRESH_AGE) < 0)
+                            missing[missingCount++] = retweeter;
+                    }
+                    if (missingCount > 0 && pool.remaining(Endpoint.LOOKUP_USERS) == 0) { // Don't wait for the window
+                        System.out.println("Method: submitSomeRetweeters. No calls left to look up " + missingCount 
+                                + " retweeters, using the follower counts we have.");
+                    } else if (missingCount > 0) { // Only look up the users we don't know or haven't refreshed in a while
+                        lookupCredential = pool.pick(Endpoint.LOOKUP_USERS);
+                        lookup = Arrays.copyOf(missing, missingCount);
+                        try {
+                            lookedUp = api.call(lookupCredential, Endpoint.LOOKUP_USERS, new Callable<ResponseList<User>>() {
+                                public ResponseList<User> call() throws TwitterException {
+                                    return pool.get(lookupCredential).lookupUsers(lookup);
+                                }
+                            }, API_TIMEOUT);
+                            for (User user : lookedUp)
+                                registry.intern(user);
+                        } catch (TwitterException e) {
+                            System.out.println("Method: submitSomeRetweeters. Couldn't look up " + missingCount 
+                                    + " retweeters, using the follower counts we have.");
+                        }
+                    }
+                    retweeters = new int[wanted.length];
+                    for (long retweeter : wanted) { // Users the lookup didn't return are suspended or deleted
+                        if (registry.indexOf(retweeter) >= 0)
+                            retweeters[found++] = registry.indexOf(retweeter);
+                    }
+                    return Arrays.copyOf(retweeters, found);
+                }
+            }, new int[0]);
         }
+        return null;
     }
     
     /**
-     * Resets the connection to Twitter, and sleeps 15 minutes to refresh the API method rates.
+     * Resets the connection to Twitter after a connection error, and sleeps a minute before the calls are retried.
+     * The API method rates are left to the {@link RateLimiter}, which knows when they refresh.
      * 
      * @throws InterruptedException
      * @throws TwitterException
      */
     private static void reconnect() throws InterruptedException, TwitterException {
-        findFollowersRate = 0;
-        getRetweetsRate = 0;
         connectionSetup();
         System.out.println("Sleeping because of reconnection.");
         System.out.println(new Date());
-        Thread.sleep(FIFTEEN_MINUTES);
+        Thread.sleep(RECONNECT_WAIT);
     }
 
     /**
-     * Finds a list of an user's first 150000 followers.
+     * Finds a list of an user's first 150000 followers. Each page is fetched through the credential with the most 
+     * calls left, waiting for the first rate limit window to reset if none have any.
      * 
      * @param userID The Twitter ID of an user we want the followers of.
      * @return A list with the user's first 150000 followers.
      * @throws InterruptedException
      * @throws TwitterException
      */
-    private static LinkedList<Long> findFollowers(long userID) throws InterruptedException, TwitterException {
-        long cursor = -1;
+    private static LinkedList<Long> findFollowers(final long userID) throws InterruptedException, TwitterException {
+        long cursor = -1, wait;
         IDs followerIDs;
         LinkedList<Long> followerIDList = new LinkedList<Long>();
-        int localFindFollowersRate = 0;
-        followerIDs = null;
+        int pages = 0;
+        String credential;
+        FollowerPageEvent event;
         do {
-            if (findFollowersRate == GET_FOLLOWERS_USER_LIMIT) {
-                setUserAuth(false);
-            }
-            if (findFollowersRate == GET_FOLLOWERS_USER_LIMIT + GET_FOLLOWERS_APP_LIMIT) {
-                System.out.println("Sleeping to refresh rate for findFollowers");
+            event = new FollowerPageEvent();
+            event.begin();
+            credential = pool.pick(Endpoint.FOLLOWER_IDS);
+            wait = limiter.waitTime(credential, Endpoint.FOLLOWER_IDS);
+            if (wait > 0) {
+                System.out.println("Sleeping " + wait + " ms to refresh rate for findFollowers");
                 System.out.println(new Date());
-                Thread.sleep(FIFTEEN_MINUTES);
-                findFollowersRate = 0;
-                setUserAuth(true);
             }
+            final Twitter auth = pool.get(credential);
+            final long pageCursor = cursor;
             try {
-                findFollowersRate++;
-                localFindFollowersRate++;
-                followerIDs = twitter.getFollowersIDs(userID, cursor);
+                followerIDs = api.call(credential, Endpoint.FOLLOWER_IDS, new Callable<IDs>() {
+                    public IDs call() throws TwitterException {
+                        return auth.getFollowersIDs(userID, pageCursor);
+                    }
+                }, wait + API_TIMEOUT);
+                pages++;
                 for (Long one : followerIDs.getIDs()) {
                     followerIDList.add(one);
                 }
+                event.followers = followerIDs.getIDs().length;
                 cursor = followerIDs.getNextCursor();
             } catch (TwitterException e) {
+                if (e.exceededRateLimitation()) { // The limiter knows now, the page is fetched again when it resets
+                    System.out.println("Method: findFollowers. Rate limit exceeded, retrying.");
+                    continue;
+                }
                 e.printStackTrace();
                 if (e.getStatusCode() != -1) {
-                    followerIDs = null;
                     System.out.println("Method: findFollowers. Protected user, skipping.");
                     return followerIDList; 
                 } else {
                     System.out.println("Connection error. Reconnecting.");
                     reconnect();
-                    localFindFollowersRate--;
+                }
+            } finally {
+                if (event.shouldCommit()) {
+                    event.userId = userID;
+                    event.cursor = pageCursor;
+                    event.credential = credential;
+                    event.commit();
                 }
             }
-        } while ((cursor != 0) && (localFindFollowersRate < (GET_FOLLOWERS_USER_LIMIT + GET_FOLLOWERS_APP_LIMIT)));
+        } while ((cursor != 0) && (pages < MAX_FOLLOWER_PAGES));
         return followerIDList;
     }
 
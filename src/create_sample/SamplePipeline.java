@@ -0,0 +1,240 @@
+package create_sample;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+import twitter4j.Status;
+import twitter4j.TwitterException;
+
+/**
+ * Turns streamed tweets into monitored tweets continuously, while the stream is
+ * still going. Each stage runs on its own thread and hands its output to the
+ * next one through a bounded queue:
+ * <ul>
+ * <li> Filter: drains the {@link Listener}, skips retweets and groups the rest
+ * into batches of up to <code>batchSize</code> tweets.
+ * <li> Lookup: looks up the current state of each batch and keeps the tweets
+ * that should be monitored.
+ * <li> Classification: classifies the sentiment and topic of batches of tweets
+ * on a {@link ClassifierPool}, and starts monitoring them.
+ * <li> Monitor: the finished tweets wait until the main thread moves them into
+ * the monitor with {@link #drainTo(Collection)}.
+ * </ul>
+ * When a stage falls behind, its input queue fills up and the stages before it
+ * block, until the listener's buffer fills up and the stream drops tweets.
+ * A batch whose lookup or classification fails is dropped, and its stage goes
+ * on with the next one.
+ *
+ * @author José Parada
+ * @version 1.0
+ * @see SampleCreator
+ */
+public class SamplePipeline {
+    private static final int LOOKUP_QUEUE_SIZE = 16; // Batches waiting to be looked up
+    private static final int CLASSIFY_QUEUE_SIZE = 1024; // Tweets waiting to be classified
+    private static final int MONITOR_QUEUE_SIZE = 1024; // Tweets waiting to be added to the monitor
+    private static final int CLASSIFY_BATCH_SIZE = 256; // Tweets classified at once, across the classifier pool
+    private static final long IDLE_WAIT = 10; // Milliseconds the filter waits when the listener is empty
+    private final int batchSize;
+    private final ClassifierPool classifiers;
+    private final BlockingQueue<List<Status>> lookupQueue;
+    private final BlockingQueue<Status> classifyQueue;
+    private final BlockingQueue<MonitoredStatus> monitorQueue;
+    private final Thread[] stages;
+    private volatile Listener source;
+    private volatile boolean running;
+    private final Metrics.Counter streamed, retweetsSkipped, batches, monitorable, failedBatches;
+    private final Metrics.Histogram lookupTime, classifyTime;
+
+    /**
+     * Constructor. The stages don't run until {@link #start()} is called.
+     *
+     * @param batchSize The maximum amount of tweets that are looked up at once.
+     * @param classifiers The pool that classifies the tweets' sentiment and topic.
+     */
+    public SamplePipeline(int batchSize, ClassifierPool classifiers) {
+        this.batchSize = batchSize;
+        this.classifiers = classifiers;
+        lookupQueue = new ArrayBlockingQueue<List<Status>>(LOOKUP_QUEUE_SIZE);
+        classifyQueue = new ArrayBlockingQueue<Status>(CLASSIFY_QUEUE_SIZE);
+        streamed = Metrics.getShared().counter("sample_stream_tweets_total", "Tweets received from the stream.");
+        retweetsSkipped = Metrics.getShared().counter("sample_stream_retweets_skipped_total",
+                "Retweets received from the stream and skipped.");
+        batches = Metrics.getShared().counter("sample_lookup_batches_total", "Batches of tweets looked up.");
+        monitorable = Metrics.getShared().counter("sample_lookup_monitorable_total",
+                "Looked up tweets that should be monitored.");
+        failedBatches = Metrics.getShared().counter("sample_pipeline_failed_batches_total",
+                "Batches dropped because their lookup or classification failed.");
+        lookupTime = Metrics.getShared().histogram("sample_lookup_batch_seconds", "Time taken to look up a batch.");
+        classifyTime = Metrics.getShared().histogram("sample_classify_batch_seconds", 
+                "Time taken to classify a batch of tweets across the classifier pool.");
+        monitorQueue = new ArrayBlockingQueue<MonitoredStatus>(MONITOR_QUEUE_SIZE);
+        stages = new Thread[] {
+            new Thread(new Runnable() { public void run() { filter(); } }, "SamplePipeline-filter"),
+            new Thread(new Runnable() { public void run() { lookup(); } }, "SamplePipeline-lookup"),
+            new Thread(new Runnable() { public void run() { classify(); } }, "SamplePipeline-classify")
+        };
+        for (Thread stage : stages)
+            stage.setDaemon(true);
+    }
+
+    /**
+     * Starts every stage.
+     */
+    public void start() {
+        running = true;
+        for (Thread stage : stages)
+            stage.start();
+    }
+
+    /**
+     * Stops every stage and waits for them to finish. Tweets still in the
+     * pipeline are discarded.
+     *
+     * @throws InterruptedException
+     */
+    public void shutdown() throws InterruptedException {
+        running = false;
+        for (Thread stage : stages)
+            stage.interrupt();
+        for (Thread stage : stages)
+            stage.join();
+    }
+
+    /**
+     * Sets the listener the filter stage will drain. The previous listener is
+     * drained completely before switching. Setting it to <code>null</code>
+     * marks the end of a stream, and the last, partial batch is looked up.
+     *
+     * @param listener The listener the tweets are being streamed to.
+     */
+    public void setSource(Listener listener) {
+        source = listener;
+    }
+
+    /**
+     * Moves the tweets that have gone through every stage into the monitor.
+     * Called from the main thread only.
+     *
+     * @param monitor The monitor the tweets will be added to.
+     * @return The amount of tweets added.
+     */
+    public int drainTo(Collection<MonitoredStatus> monitor) {
+        return monitorQueue.drainTo(monitor);
+    }
+
+    /**
+     * Filter stage. Drains the current listener, skips retweets and groups the
+     * rest into batches for the lookup stage.
+     */
+    private void filter() {
+        Listener current = null, next;
+        ArrayList<Status> drained = new ArrayList<Status>();
+        List<Status> batch = new ArrayList<Status>(batchSize);
+        try {
+            while (running) {
+                next = source;
+                drained.clear();
+                if (current != null)
+                    current.drainTo(drained);
+                if (drained.isEmpty()) {
+                    if (current != next) { // The previous listener has been drained completely
+                        if (next == null && !batch.isEmpty()) { // End of the stream
+                            lookupQueue.put(batch);
+                            batch = new ArrayList<Status>(batchSize);
+                        }
+                        current = next;
+                    } else {
+                        Thread.sleep(IDLE_WAIT);
+                    }
+                    continue;
+                }
+                streamed.add(drained.size());
+                for (Status status : drained) {
+                    if (status.isRetweet()) { // Skip retweets
+                        retweetsSkipped.increment();
+                    } else {
+                        batch.add(status);
+                        if (batch.size() == batchSize) {
+                            lookupQueue.put(batch);
+                            batch = new ArrayList<Status>(batchSize);
+                        }
+                    }
+                }
+            }
+        } catch (InterruptedException e) { // Shut down
+        }
+    }
+
+    /**
+     * Lookup stage. Looks up each batch and keeps the tweets that should be
+     * monitored. A batch whose lookup fails or times out, like when there are
+     * no lookup calls left until the rate limit window resets, is dropped.
+     */
+    private void lookup() {
+        List<Status> batch, found;
+        long started;
+        try {
+            while (running) {
+                batch = lookupQueue.take();
+                started = System.nanoTime();
+                try {
+                    found = SampleCreator.lookupSample(batch);
+                } catch (TwitterException e) {
+                    System.out.println("Method: lookup. Status Lookup failed on SamplePipeline, dropping " 
+                            + batch.size() + " statuses. " + e.getMessage());
+                    failedBatches.increment();
+                    continue;
+                }
+                lookupTime.observeSince(started);
+                batches.increment();
+                for (Status status : found) {
+                    if (SampleCreator.isMonitorable(status)) {
+                        monitorable.increment();
+                        classifyQueue.put(status);
+                    }
+                }
+            }
+        } catch (InterruptedException e) { // Shut down
+        }
+    }
+
+    /**
+     * Classification stage. Takes every tweet waiting, up to a batch,
+     * classifies their sentiment and topic on the classifier pool, and starts
+     * monitoring them, fetching the whole batch's retweeters at once. A batch that fails with an unexpected exception is
+     * dropped, so the stage keeps running.
+     */
+    private void classify() {
+        List<Status> batch = new ArrayList<Status>(CLASSIFY_BATCH_SIZE);
+        List<String> texts = new ArrayList<String>(CLASSIFY_BATCH_SIZE);
+        String[] sentiments = new String[CLASSIFY_BATCH_SIZE], topics = new String[CLASSIFY_BATCH_SIZE];
+        long started;
+        try {
+            while (running) {
+                batch.clear();
+                texts.clear();
+                batch.add(classifyQueue.take());
+                classifyQueue.drainTo(batch, CLASSIFY_BATCH_SIZE - 1);
+                for (Status status : batch)
+                    texts.add(status.getText());
+                started = System.nanoTime();
+                try {
+                    classifiers.classifyAll(texts, sentiments, topics);
+                    classifyTime.observeSince(started);
+                    for (MonitoredStatus tweet : SampleCreator.startMonitoring(batch, sentiments, topics))
+                        monitorQueue.put(tweet);
+                } catch (RuntimeException e) {
+                    System.out.println("Method: classify. Could not start monitoring a batch on SamplePipeline, "
+                            + "dropping " + batch.size() + " statuses.");
+                    e.printStackTrace();
+                    failedBatches.increment();
+                }
+            }
+        } catch (InterruptedException e) { // Shut down
+        }
+    }
+}
@@ -6,6 +6,7 @@ import java.io.IOException;
 import com.aliasi.classify.ConditionalClassification;
 import com.aliasi.classify.LMClassifier;
 import com.aliasi.util.AbstractExternalizable;
+import com.aliasi.util.Compilable;
 
 /**
  * Uses a language model classifier to classify a tweet's sentiment as
@@ -15,11 +16,14 @@ import com.aliasi.util.AbstractExternalizable;
  * @version 1.0
  */
 public class SentimentClassifier {
+    private static final String[] CATEGORIES = {"pos", "neg", "neu"};
     @SuppressWarnings("rawtypes") // We won't reference the type arguments of LMClassifier
-    private LMClassifier classifier;
+    private LMClassifier classifier; // Compiled, so it can classify on several threads at once
 
     /**
-     * Constructor. Reads the language model classifier from a text file.
+     * Constructor. Reads the language model classifier from a text file. The classifier was saved while it could
+     * still be trained, as a dynamic classifier whose language models are updated even while classifying, so it's 
+     * compiled once it's read.
      * 
      * @param savedClassifier The text file where the classifier is saved.
      * @throws IOException
@@ -27,7 +31,39 @@ public class SentimentClassifier {
      */
     @SuppressWarnings("rawtypes") // The file contains an LMClassifier
     public SentimentClassifier(File savedClassifier) throws IOException, ClassNotFoundException {
-        classifier = (LMClassifier)AbstractExternalizable.readObject(savedClassifier);
+        Object saved = AbstractExternalizable.readObject(savedClassifier);
+        if (saved instanceof Compilable)
+            saved = AbstractExternalizable.compile((Compilable)saved);
+        classifier = (LMClassifier)saved;
+    }
+
+    /**
+     * Returns the code of a sentiment, its position in "pos", "neg" and "neu".
+     * 
+     * @param sentiment "pos", "neg", "neu" or <code>null</code>.
+     * @return The sentiment's code, or -1 if the sentiment is <code>null</code>.
+     * @throws IllegalArgumentException If the sentiment isn't one of the three.
+     * @see #getCategory(int)
+     */
+    public static byte getCode(String sentiment) {
+        if (sentiment == null)
+            return -1;
+        for (int i = 0; i < CATEGORIES.length; i++) {
+            if (CATEGORIES[i].equals(sentiment))
+                return (byte)i;
+        }
+        throw new IllegalArgumentException("Unknown sentiment: " + sentiment);
+    }
+
+    /**
+     * Returns the sentiment with a given code.
+     * 
+     * @param code The sentiment's code.
+     * @return "pos", "neg" or "neu", or <code>null</code> if the code is -1.
+     * @see #getCode(String)
+     */
+    public static String getCategory(int code) {
+        return code < 0 ? null : CATEGORIES[code];
     }
 
     /**
@@ -37,7 +73,16 @@ public class SentimentClassifier {
      * @return The sentiment of the tweet: "pos", "neg" or "neu".
      */
     public String classify(String text) {
-        ConditionalClassification classification = classifier.classify(text);
+        ClassificationEvent event = new ClassificationEvent();
+        ConditionalClassification classification;
+        event.begin();
+        classification = classifier.classify(text);
+        if (event.shouldCommit()) {
+            event.classifier = "sentiment";
+            event.category = classification.bestCategory();
+            event.textLength = text.length();
+            event.commit();
+        }
         return classification.bestCategory();
     }
 }
\ No newline at end of file
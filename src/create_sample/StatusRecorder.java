@@ -0,0 +1,68 @@
+package create_sample;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.ObjectOutputStream;
+
+import twitter4j.Status;
+
+/**
+ * Records the tweets being streamed from the Streaming API into a status log,
+ * so they can later be replayed through the sampling loop with a
+ * {@link StatusReplayer}. Each record in the log is the time the tweet was
+ * received, in milliseconds since the epoch, followed by the serialized tweet.
+ *
+ * @author José Parada
+ * @version 1.0
+ * @see StatusReplayer
+ */
+public class StatusRecorder {
+    private ObjectOutputStream output;
+    private int recorded;
+
+    /**
+     * Constructor. Creates the status log, replacing any previous log in the
+     * same file.
+     *
+     * @param log The file where the tweets will be recorded.
+     * @throws IOException
+     */
+    public StatusRecorder(File log) throws IOException {
+        output = new ObjectOutputStream(new BufferedOutputStream(new FileOutputStream(log)));
+        recorded = 0;
+    }
+
+    /**
+     * Appends a tweet to the status log, stamped with the current time.
+     *
+     * @param status The tweet that was streamed.
+     * @throws IOException
+     */
+    public synchronized void record(Status status) throws IOException {
+        output.writeLong(System.currentTimeMillis());
+        output.writeObject(status);
+        // Don't keep every recorded tweet referenced by the stream's handle table
+        output.reset();
+        recorded++;
+    }
+
+    /**
+     * Returns the amount of tweets that have been recorded so far.
+     *
+     * @return The amount of tweets in the status log.
+     */
+    public synchronized int getRecorded() {
+        return recorded;
+    }
+
+    /**
+     * Flushes and closes the status log.
+     *
+     * @throws IOException
+     */
+    public synchronized void close() throws IOException {
+        output.close();
+    }
+}
@@ -0,0 +1,162 @@
+package create_sample;
+
+import java.io.BufferedInputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+
+import twitter4j.Status;
+
+/**
+ * Replays a status log written by a {@link StatusRecorder} as if it were the
+ * Streaming API. Tweets are handed to a {@link Listener} on their own thread,
+ * either at the pace they were recorded, a number of times faster, or as fast
+ * as the listener can take them.
+ *
+ * Like a stream, a replayer can be started and shut down once per cycle. Each
+ * time it is started it continues where the previous cycle left off, until
+ * the log is exhausted, at which point the listener is told the stream ended.
+ *
+ * @author José Parada
+ * @version 1.0
+ * @see StatusRecorder
+ */
+public class StatusReplayer implements Runnable {
+    private static final long NANOSECONDS_IN_A_MILLISECOND = 1000000;
+    // Recorded gaps longer than this are the pauses between cycles, and are not replayed
+    private static final long MAX_REPLAYED_GAP = 60000;
+    private static final long FULL_LISTENER_WAIT = 1; // Milliseconds to wait for the listener to make room
+    private ObjectInputStream input;
+    private double speed;
+    private Listener listener;
+    private Thread thread;
+    private Status pending; // Read from the log but not yet handed to a listener
+    private long pendingReceived;
+    private int replayed;
+    private volatile boolean running, exhausted;
+
+    /**
+     * Constructor. Opens a status log to be replayed.
+     *
+     * @param log The file the tweets were recorded to.
+     * @param speed How many times faster than recorded the tweets will be
+     * replayed. <code>1</code> replays at wall-clock speed, and
+     * <code>0</code> or less replays as fast as possible.
+     * @throws IOException
+     */
+    public StatusReplayer(File log, double speed) throws IOException {
+        input = new ObjectInputStream(new BufferedInputStream(new FileInputStream(log)));
+        this.speed = speed;
+        replayed = 0;
+        running = false;
+        exhausted = false;
+    }
+
+    /**
+     * Sets the listener the replayed tweets will be handed to. Replaces any
+     * previous listener.
+     *
+     * @param listener The listener that will receive the tweets.
+     */
+    public void addListener(Listener listener) {
+        this.listener = listener;
+    }
+
+    /**
+     * Starts replaying tweets on a new thread. Stops on its own once the
+     * listener's limit has been hit or the log has been exhausted.
+     */
+    public void sample() {
+        running = true;
+        thread = new Thread(this, "StatusReplayer");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Stops replaying tweets and waits for the replay thread to finish. Tweets
+     * that haven't been replayed yet will be replayed the next time
+     * {@link #sample()} is called.
+     *
+     * @throws InterruptedException
+     */
+    public void shutdown() throws InterruptedException {
+        running = false;
+        if (thread != null) {
+            thread.interrupt();
+            thread.join();
+            thread = null;
+        }
+    }
+
+    /**
+     * Returns whether every tweet in the log has been replayed.
+     *
+     * @return True if the log has been exhausted, false otherwise.
+     */
+    public boolean isExhausted() {
+        return exhausted;
+    }
+
+    /**
+     * Returns the amount of tweets replayed so far.
+     *
+     * @return The amount of tweets handed to listeners so far.
+     */
+    public int getReplayed() {
+        return replayed;
+    }
+
+    /**
+     * Closes the status log.
+     *
+     * @throws IOException
+     */
+    public void close() throws IOException {
+        input.close();
+    }
+
+    /**
+     * Hands the tweets in the log to the listener, sleeping between tweets so
+     * that they are replayed at the configured speed.
+     */
+    public void run() {
+        long startedAt = System.nanoTime(), firstReceived = -1, lastReceived = -1, wait;
+        try {
+            while (running && !listener.limitHit()) {
+                if (pending == null) {
+                    pendingReceived = input.readLong();
+                    pending = (Status)input.readObject();
+                }
+                if (speed > 0) {
+                    if (firstReceived < 0 || pendingReceived - lastReceived > MAX_REPLAYED_GAP) {
+                        startedAt = System.nanoTime();
+                        firstReceived = pendingReceived;
+                    }
+                    wait = startedAt + (long)((pendingReceived - firstReceived) * NANOSECONDS_IN_A_MILLISECOND / speed) - System.nanoTime();
+                    if (wait > 0) {
+                        Thread.sleep(wait / NANOSECONDS_IN_A_MILLISECOND, (int)(wait % NANOSECONDS_IN_A_MILLISECOND));
+                    }
+                    lastReceived = pendingReceived;
+                }
+                while (listener.isFull()) // Don't drop tweets when the consumer falls behind
+                    Thread.sleep(FULL_LISTENER_WAIT);
+                listener.onStatus(pending);
+                pending = null;
+                replayed++;
+            }
+        } catch (InterruptedException e) { // Shut down
+        } catch (EOFException e) {
+            exhausted = true;
+            listener.onEndOfStream();
+        } catch (IOException e) {
+            exhausted = true;
+            listener.onException(e);
+        } catch (ClassNotFoundException e) {
+            exhausted = true;
+            listener.onException(e);
+        }
+    }
+}
@@ -0,0 +1,122 @@
+package create_sample;
+
+import java.util.Collection;
+import java.util.concurrent.atomic.AtomicLong;
+
+import twitter4j.Status;
+
+/**
+ * A bounded ring buffer that hands tweets from one producer thread to one
+ * consumer thread without locks. The stream thread offers tweets while the
+ * main thread polls or drains them, possibly at the same time.
+ *
+ * Only one thread may call {@link #offer(Status)}, and only one thread may
+ * call {@link #poll()} or {@link #drainTo(Collection, int)}.
+ *
+ * @author José Parada
+ * @version 1.0
+ * @see Listener
+ */
+public class StatusRingBuffer {
+    private final Status[] buffer;
+    private final int mask;
+    private final AtomicLong head, tail; // Next slot to be read, next slot to be written
+    private long cachedHead; // Producer's last read of head
+    private long cachedTail; // Consumer's last read of tail
+
+    /**
+     * Constructor. The capacity is rounded up to the next power of two.
+     *
+     * @param capacity The minimum amount of tweets the buffer can hold.
+     */
+    public StatusRingBuffer(int capacity) {
+        int size = 1;
+        while (size < capacity)
+            size <<= 1;
+        buffer = new Status[size];
+        mask = size - 1;
+        head = new AtomicLong(0);
+        tail = new AtomicLong(0);
+        cachedHead = 0;
+        cachedTail = 0;
+    }
+
+    /**
+     * Adds a tweet to the buffer. Called from the producer thread only.
+     *
+     * @param status The tweet to add.
+     * @return True if the tweet was added, false if the buffer was full.
+     */
+    public boolean offer(Status status) {
+        long t = tail.get();
+        if (t - cachedHead >= buffer.length) {
+            cachedHead = head.get();
+            if (t - cachedHead >= buffer.length)
+                return false;
+        }
+        buffer[(int)t & mask] = status;
+        tail.lazySet(t + 1); // Publishes the slot to the consumer
+        return true;
+    }
+
+    /**
+     * Removes the oldest tweet from the buffer. Called from the consumer
+     * thread only.
+     *
+     * @return The oldest tweet in the buffer, or <code>null</code> if it's empty.
+     */
+    public Status poll() {
+        long h = head.get();
+        if (h >= cachedTail) {
+            cachedTail = tail.get();
+            if (h >= cachedTail)
+                return null;
+        }
+        int slot = (int)h & mask;
+        Status status = buffer[slot];
+        buffer[slot] = null;
+        head.lazySet(h + 1); // Frees the slot for the producer
+        return status;
+    }
+
+    /**
+     * Moves tweets from the buffer into a collection, oldest first. Called
+     * from the consumer thread only.
+     *
+     * @param sink The collection the tweets will be added to.
+     * @param max The maximum amount of tweets to move.
+     * @return The amount of tweets moved.
+     */
+    public int drainTo(Collection<? super Status> sink, int max) {
+        long h = head.get(), available;
+        int slot, drained;
+        cachedTail = tail.get();
+        available = Math.min(cachedTail - h, max);
+        for (drained = 0; drained < available; drained++) {
+            slot = (int)(h + drained) & mask;
+            sink.add(buffer[slot]);
+            buffer[slot] = null;
+        }
+        head.lazySet(h + drained);
+        return drained;
+    }
+
+    /**
+     * Returns the amount of tweets in the buffer. Only an estimate while the
+     * producer or the consumer are active.
+     *
+     * @return The amount of tweets waiting to be consumed.
+     */
+    public int size() {
+        return (int)(tail.get() - head.get());
+    }
+
+    /**
+     * Returns the maximum amount of tweets the buffer can hold.
+     *
+     * @return The capacity of the buffer.
+     */
+    public int capacity() {
+        return buffer.length;
+    }
+}
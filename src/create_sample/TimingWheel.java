@@ -0,0 +1,153 @@
+package create_sample;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A hierarchical timing wheel. Items are scheduled for a tick and handed back in a batch when the wheel reaches it.
+ * Scheduling an item and handing it back take constant time, so the cost of each tick depends on how many items are
+ * due, not on how many are scheduled.
+ *
+ * Each level has 64 slots. Level 0 holds the items due in the current block of 64 ticks, one slot per tick. Level 1
+ * holds the items due in the current block of 64 * 64 ticks, one slot per 64 ticks, and so on. When the wheel enters
+ * a new block, the slot for that block is emptied into the levels below it.
+ *
+ * @author José Parada
+ * @version 1.0
+ * @see RefreshScheduler
+ */
+public class TimingWheel<T> {
+    private static final int SLOT_BITS = 6;
+    private static final int SLOTS = 1 << SLOT_BITS;
+    private static final int MASK = SLOTS - 1;
+    private final int levels;
+    private final ArrayList<List<Entry<T>>> slots; // Slot s of level l is at l * SLOTS + s, null while it's empty
+    private List<T> late; // Items scheduled for a tick that had already gone by
+    private long now;
+    private int size;
+
+    /**
+     * An item and the tick it's due.
+     */
+    private static class Entry<T> {
+        private final T item;
+        private final long deadline;
+
+        /**
+         * Constructor.
+         *
+         * @param item The scheduled item.
+         * @param deadline The tick it's due.
+         */
+        private Entry(T item, long deadline) {
+            this.item = item;
+            this.deadline = deadline;
+        }
+    }
+
+    /**
+     * Constructor. Items can be scheduled up to 64 to the power of <code>levels</code> ticks ahead. Items scheduled
+     * further ahead go around the top level more than once.
+     *
+     * @param levels The amount of levels.
+     * @param start The tick the wheel starts at.
+     */
+    public TimingWheel(int levels, long start) {
+        this.levels = levels;
+        slots = new ArrayList<List<Entry<T>>>(levels * SLOTS);
+        for (int i = 0; i < levels * SLOTS; i++)
+            slots.add(null);
+        late = new ArrayList<T>();
+        now = start;
+        size = 0;
+    }
+
+    /**
+     * Schedules an item. Items scheduled for the current tick or one that has gone by are handed back in the next
+     * tick.
+     *
+     * @param item The item.
+     * @param deadline The tick the item is due.
+     */
+    public void schedule(T item, long deadline) {
+        size++;
+        place(new Entry<T>(item, deadline), late);
+    }
+
+    /**
+     * Moves the wheel to the next tick.
+     *
+     * @return The items due in the new tick, including the ones scheduled late.
+     */
+    public List<T> advance() {
+        List<T> due = late;
+        List<Entry<T>> cascaded;
+        late = new ArrayList<T>();
+        now++;
+        for (int level = levels - 1; level > 0; level--) {
+            if ((now & ((1L << (SLOT_BITS * level)) - 1)) == 0) { // Entering a new block of this level
+                cascaded = take(level, (int)(now >> (SLOT_BITS * level)) & MASK);
+                if (cascaded != null) {
+                    for (Entry<T> entry : cascaded)
+                        place(entry, due);
+                }
+            }
+        }
+        cascaded = take(0, (int)now & MASK);
+        if (cascaded != null) {
+            for (Entry<T> entry : cascaded)
+                due.add(entry.item);
+        }
+        size -= due.size();
+        return due;
+    }
+
+    /**
+     * Returns the current tick.
+     *
+     * @return The tick the wheel is at.
+     */
+    public long getNow() {
+        return now;
+    }
+
+    /**
+     * Returns the amount of scheduled items.
+     *
+     * @return The items that haven't been handed back yet.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Puts an entry in the lowest level whose current block holds its tick.
+     *
+     * @param entry The entry.
+     * @param due Where the entry's item goes if it's already due.
+     */
+    private void place(Entry<T> entry, List<T> due) {
+        int level = 0, slot;
+        if (entry.deadline <= now) {
+            due.add(entry.item);
+            return;
+        }
+        while (level < levels - 1 && (entry.deadline >> (SLOT_BITS * (level + 1))) != (now >> (SLOT_BITS * (level + 1))))
+            level++;
+        slot = level * SLOTS + ((int)(entry.deadline >> (SLOT_BITS * level)) & MASK);
+        if (slots.get(slot) == null)
+            slots.set(slot, new ArrayList<Entry<T>>());
+        slots.get(slot).add(entry);
+    }
+
+    /**
+     * Empties a slot.
+     *
+     * @param level The slot's level.
+     * @param slot The slot's index in its level.
+     * @return The entries that were in the slot, or <code>null</code> if it was empty.
+     */
+    private List<Entry<T>> take(int level, int slot) {
+        return slots.set(level * SLOTS + slot, null);
+    }
+}
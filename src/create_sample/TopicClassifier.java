@@ -1,7 +1,5 @@
 package create_sample;
 
-import com.aliasi.classify.Classification;
-import com.aliasi.classify.Classified;
 import com.aliasi.classify.DynamicLMClassifier;
 import com.aliasi.classify.JointClassification;
 import com.aliasi.classify.JointClassifier;
@@ -10,8 +8,18 @@ import com.aliasi.util.AbstractExternalizable;
 
 import java.io.File;
 import java.io.IOException;
-
-import com.aliasi.util.Files;
+import java.io.InterruptedIOException;
+import java.nio.charset.Charset;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 /**
  * Uses a language model classifier to classify a tweet's topic from a list of 
@@ -42,11 +50,20 @@ import com.aliasi.util.Files;
  */
 public class TopicClassifier {
     private static final File TRAINING_DIR = new File("topics");
+    private static final File TRAINING_CORPUS = new File("topics.corpus"); // TRAINING_DIR packed by CorpusPacker
+    private static final File SAVED_CLASSIFIER = new File("TopicClassifier.txt");
     private static final String[] CATEGORIES = {"Business_Finance", "Disaster_Accident", "Education", "Entertainment_Culture", "Environment",  
         "Health_Medical_Pharma", "Hospitality_Recreation", "Human Interest", "Labor", "Law_Crime", "Other", "Politics", "Religion_Belief", "Social Issues", 
         "Sports", "Technology_Internet", "War_Conflict", "Weather"};
+    private static final Charset CHARSET = Charset.forName("UTF-8");
     private static final int NGRAM_SIZE = 6; // Amount of words the language model classifier will take together when calculating probabilities.
-    private static JointClassifier<CharSequence> compiledClassifier;
+    private JointClassifier<CharSequence> compiledClassifier; // Compiled, so it can classify on several threads at once
+
+    /**
+     * Constructor. The classifier can't classify anything until it's trained with {@link #trainClassifier()}.
+     */
+    TopicClassifier() {
+    }
 
     /**
      * Constructor. Reads the classifier from a text file.
@@ -60,6 +77,36 @@ public class TopicClassifier {
         compiledClassifier = (JointClassifier<CharSequence>)AbstractExternalizable.readObject(savedClassifier);
     }
 
+    /**
+     * Returns the code of a topic, its position in the list in {@link TopicClassifier the class description}.
+     * 
+     * @param topic A topic from the list, or <code>null</code>.
+     * @return The topic's code, or -1 if the topic is <code>null</code>.
+     * @throws IllegalArgumentException If the topic isn't in the list.
+     * @see #getCategory(int)
+     */
+    public static byte getCode(String topic) {
+        if (topic == null)
+            return -1;
+        for (int i = 0; i < CATEGORIES.length; i++) {
+            if (CATEGORIES[i].equals(topic))
+                return (byte)i;
+        }
+        throw new IllegalArgumentException("Unknown topic: " + topic);
+    }
+
+    /**
+     * Returns the topic with a given code.
+     * 
+     * @param code The topic's code.
+     * @return A topic from the list in {@link TopicClassifier the class description}, or <code>null</code> if the 
+     * code is -1.
+     * @see #getCode(String)
+     */
+    public static String getCategory(int code) {
+        return code < 0 ? null : CATEGORIES[code];
+    }
+
     /**
      * Classifies the topic of a given tweet using the classifier.
      * 
@@ -68,7 +115,16 @@ public class TopicClassifier {
      * @see TopicClassifier
      */
     public String classify(String text) {
-        JointClassification jc = compiledClassifier.classify(text);
+        ClassificationEvent event = new ClassificationEvent();
+        JointClassification jc;
+        event.begin();
+        jc = compiledClassifier.classify(text);
+        if (event.shouldCommit()) {
+            event.classifier = "topic";
+            event.category = jc.bestCategory();
+            event.textLength = text.length();
+            event.commit();
+        }
         return jc.bestCategory();
     }
 
@@ -77,26 +133,146 @@ public class TopicClassifier {
      * training sample. This training sample was first used in
      * {@link <a href=http://fabianabel.de/papers/2011-wis-twitter-um-umap.pdf>Analyzing User Modeling on Twitter for Personalized News Recommendations</a>}.
      * 
+     * Each topic has its own language model, so the topics are read and trained at the same time, one per thread. 
+     * The topics' counts are added to the classifier's topic distribution once they're done, in the same order as 
+     * before, so the compiled classifier is the same as if every file had been trained one after the other.
+     * 
+     * If the training sample has been packed into topics.corpus by {@link CorpusPacker}, it's read from there 
+     * instead of from the topics directory. If the topics directory changed after it was packed, it's packed again 
+     * first.
+     * 
+     * The compiled classifier is saved to TopicClassifier.txt.
+     * 
      * @throws IOException
      * @throws ClassNotFoundException
      * @see <a href=http://fabianabel.de/papers/2011-wis-twitter-um-umap.pdf>Analyzing User Modeling on Twitter for Personalized News Recommendations</a>
+     * @see #trainClassifier(File)
      */
-    @SuppressWarnings("unchecked") // The file contains a JointClassifier
     public void trainClassifier() throws IOException, ClassNotFoundException {
-        DynamicLMClassifier<NGramProcessLM> classifier = DynamicLMClassifier.createNGramProcess(CATEGORIES, NGRAM_SIZE);
-        for(int i = 0; i < CATEGORIES.length; ++i) {
-            File classDir = new File(TRAINING_DIR, CATEGORIES[i]);
-            String[] trainingFiles = classDir.list();
-            for (int j = 0; j < trainingFiles.length; ++j) {
-                File file = new File(classDir, trainingFiles[j]);
-                String text = Files.readFromFile(file, "UTF-8");
-                Classification classification = new Classification(CATEGORIES[i]);
-                Classified<CharSequence> classified = new Classified<CharSequence>(text, classification);
-                classifier.handle(classified);
+        trainClassifier(SAVED_CLASSIFIER);
+    }
+
+    /**
+     * Trains a classifier from scratch like {@link #trainClassifier()}, and saves the compiled classifier to a given 
+     * file instead of TopicClassifier.txt.
+     * 
+     * @param savedClassifier The text file where the compiled classifier will be saved.
+     * @throws IOException
+     * @throws ClassNotFoundException
+     */
+    @SuppressWarnings("unchecked") // The file contains a JointClassifier
+    public void trainClassifier(File savedClassifier) throws IOException, ClassNotFoundException {
+        final DynamicLMClassifier<NGramProcessLM> classifier = DynamicLMClassifier.createNGramProcess(CATEGORIES, NGRAM_SIZE);
+        final PackedCorpus corpus = openCorpus();
+        ExecutorService pool = Executors.newFixedThreadPool(Math.min(CATEGORIES.length, 
+                Runtime.getRuntime().availableProcessors()));
+        List<Future<Integer>> trained = new ArrayList<Future<Integer>>(CATEGORIES.length);
+        int examples;
+        for (final String category : CATEGORIES) {
+            trained.add(pool.submit(new Callable<Integer>() {
+                public Integer call() throws IOException {
+                    if (corpus != null)
+                        return trainCategory(classifier.languageModel(category), corpus.texts(category));
+                    return trainCategory(classifier.languageModel(category), new File(TRAINING_DIR, category).toPath());
+                }
+            }));
+        }
+        try {
+            for (int i = 0; i < CATEGORIES.length; i++) {
+                examples = trained.get(i).get();
+                if (examples > 0)
+                    classifier.categoryDistribution().train(CATEGORIES[i], examples);
             }
-        }	
+        } catch (InterruptedException e) {
+            throw new InterruptedIOException("Method: trainClassifier. Training interrupted.");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException)
+                throw (IOException)e.getCause();
+            if (e.getCause() instanceof RuntimeException)
+                throw (RuntimeException)e.getCause();
+            throw (Error)e.getCause();
+        } finally {
+            pool.shutdownNow();
+        }
         // compiling
-        AbstractExternalizable.compileTo(classifier, new File("TopicClassifier.txt"));
+        AbstractExternalizable.compileTo(classifier, savedClassifier);
         compiledClassifier = (JointClassifier<CharSequence>) AbstractExternalizable.compile(classifier);
     }
+
+    /**
+     * Opens the packed training sample, packing the topics directory again if it changed after it was packed.
+     * 
+     * @return The packed training sample, or <code>null</code> if it hasn't been packed.
+     * @throws IOException If it can't be read, or doesn't have examples of every topic.
+     */
+    private static PackedCorpus openCorpus() throws IOException {
+        PackedCorpus corpus;
+        if (!TRAINING_CORPUS.exists())
+            return null;
+        if (isPackStale()) {
+            System.out.println("Method: openCorpus. " + TRAINING_DIR + " changed after it was packed, packing it again.");
+            CorpusPacker.pack(TRAINING_DIR, TRAINING_CORPUS);
+        }
+        corpus = new PackedCorpus(TRAINING_CORPUS);
+        for (String category : CATEGORIES)
+            if (corpus.size(category) == 0)
+                throw new IOException("Method: openCorpus. " + TRAINING_CORPUS + " has no examples of " + category + ".");
+        return corpus;
+    }
+
+    /**
+     * Returns whether the topics directory changed after it was packed. Only the directories are checked, whose 
+     * times change when examples are added, removed or renamed, not when one is edited in place.
+     * 
+     * @return True if the topics directory or one of its topics is newer than the packed training sample.
+     */
+    private static boolean isPackStale() {
+        long packed = TRAINING_CORPUS.lastModified();
+        if (TRAINING_DIR.lastModified() > packed)
+            return true;
+        for (String category : CATEGORIES)
+            if (new File(TRAINING_DIR, category).lastModified() > packed)
+                return true;
+        return false;
+    }
+
+    /**
+     * Trains a topic's language model with every file in its training directory. Each topic's model is only
+     * trained by one thread.
+     * 
+     * @param model The topic's language model.
+     * @param classDir The topic's training directory.
+     * @return The amount of files the model was trained with.
+     * @throws IOException
+     */
+    private static int trainCategory(NGramProcessLM model, Path classDir) throws IOException {
+        DirectoryStream<Path> trainingFiles = Files.newDirectoryStream(classDir);
+        int examples = 0;
+        try {
+            for (Path file : trainingFiles) {
+                model.train(new String(Files.readAllBytes(file), CHARSET));
+                examples++;
+            }
+        } finally {
+            trainingFiles.close();
+        }
+        return examples;
+    }
+
+    /**
+     * Trains a topic's language model with every text of the topic in a packed corpus.
+     * 
+     * @param model The topic's language model.
+     * @param texts The topic's texts.
+     * @return The amount of texts the model was trained with.
+     * @see PackedCorpus#texts(String)
+     */
+    private static int trainCategory(NGramProcessLM model, Iterable<CharSequence> texts) {
+        int examples = 0;
+        for (CharSequence text : texts) {
+            model.train(text);
+            examples++;
+        }
+        return examples;
+    }
 }
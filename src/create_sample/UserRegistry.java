@@ -0,0 +1,177 @@
+package create_sample;
+
+import java.util.Arrays;
+
+import twitter4j.User;
+
+/**
+ * Every Twitter user we've seen retweet a monitored tweet, kept once for the whole process. Each user gets an index
+ * the first time they're seen, and their ID, follower count and when that count was last refreshed are kept in
+ * primitive columns under that index, so the same accounts retweeting many tweets cost one entry. Monitored tweets
+ * keep the indexes of their retweeters in a {@link RetweeterSet}.
+ *
+ * The registry also works as a cache in front of the Twitter API's user lookups, telling which users haven't been
+ * refreshed recently enough.
+ *
+ * @author José Parada
+ * @version 1.0
+ * @see RetweeterSet
+ */
+public final class UserRegistry {
+    private static final UserRegistry SHARED = new UserRegistry();
+    private static final int INITIAL_CAPACITY = 1024; // Must be a power of two
+    private static final long HASH_MULTIPLIER = 0x9E3779B97F4A7C15L; // Spreads sequential IDs across the table
+    private long[] ids;
+    private int[] followers;
+    private long[] refreshed; // Epoch milliseconds, 0 if the follower count came from a saved file
+    private int[] table; // Index + 1 of the user with each hashed ID, 0 for a free slot
+    private int size;
+
+    /**
+     * Constructor. Creates an empty registry.
+     */
+    private UserRegistry() {
+        ids = new long[INITIAL_CAPACITY];
+        followers = new int[INITIAL_CAPACITY];
+        refreshed = new long[INITIAL_CAPACITY];
+        table = new int[INITIAL_CAPACITY * 2];
+        size = 0;
+    }
+
+    /**
+     * Returns the registry shared by the whole process.
+     *
+     * @return The shared registry.
+     */
+    public static UserRegistry getShared() {
+        return SHARED;
+    }
+
+    /**
+     * Registers a user that was just fetched from Twitter, or refreshes their follower count.
+     *
+     * @param user The user.
+     * @return The user's index.
+     */
+    public int intern(User user) {
+        return intern(user.getId(), user.getFollowersCount(), System.currentTimeMillis());
+    }
+
+    /**
+     * Registers a user, or refreshes their follower count if this one is newer than the one we have.
+     *
+     * @param id The user's ID.
+     * @param followerCount The amount of followers the user has.
+     * @param time When the follower count was fetched, in epoch milliseconds, or 0 if it's unknown.
+     * @return The user's index.
+     */
+    public synchronized int intern(long id, int followerCount, long time) {
+        int slot = find(id), index = table[slot] - 1;
+        if (index < 0) {
+            index = size;
+            if (size == ids.length) {
+                ids = Arrays.copyOf(ids, size * 2);
+                followers = Arrays.copyOf(followers, size * 2);
+                refreshed = Arrays.copyOf(refreshed, size * 2);
+            }
+            ids[index] = id;
+            followers[index] = followerCount;
+            refreshed[index] = time;
+            size++;
+            table[slot] = index + 1;
+            if (2 * size > table.length) // Keep the table at most half full
+                rehash(table.length * 2);
+        } else if (time >= refreshed[index]) {
+            followers[index] = followerCount;
+            refreshed[index] = time;
+        }
+        return index;
+    }
+
+    /**
+     * Returns the index of a user.
+     *
+     * @param id The user's ID.
+     * @return The user's index, or -1 if they haven't been registered.
+     */
+    public synchronized int indexOf(long id) {
+        return table[find(id)] - 1;
+    }
+
+    /**
+     * Returns the index of a user, if their follower count was refreshed recently enough.
+     *
+     * @param id The user's ID.
+     * @param maxAge Milliseconds since the last refresh for the follower count to be trusted.
+     * @return The user's index, or -1 if they haven't been registered or their follower count is too old.
+     */
+    public synchronized int indexOfFresh(long id, long maxAge) {
+        int index = table[find(id)] - 1;
+        if (index < 0 || System.currentTimeMillis() - refreshed[index] > maxAge)
+            return -1;
+        return index;
+    }
+
+    /**
+     * Returns a user's ID.
+     *
+     * @param index The user's index.
+     * @return The user's Twitter ID.
+     */
+    public synchronized long getId(int index) {
+        return ids[index];
+    }
+
+    /**
+     * Returns a user's follower count.
+     *
+     * @param index The user's index.
+     * @return The amount of followers the user had when last refreshed.
+     */
+    public synchronized int getFollowers(int index) {
+        return followers[index];
+    }
+
+    /**
+     * Returns when a user's follower count was last refreshed.
+     *
+     * @param index The user's index.
+     * @return Epoch milliseconds, or 0 if it's unknown.
+     */
+    public synchronized long getRefreshed(int index) {
+        return refreshed[index];
+    }
+
+    /**
+     * Returns the amount of users registered.
+     *
+     * @return The size of the registry.
+     */
+    public synchronized int size() {
+        return size;
+    }
+
+    /**
+     * Finds the table slot of an ID, or the free slot where it would go.
+     *
+     * @param id The ID.
+     * @return The slot's index.
+     */
+    private int find(long id) {
+        int mask = table.length - 1, slot = (int)((id * HASH_MULTIPLIER) >>> 32) & mask;
+        while (table[slot] != 0 && ids[table[slot] - 1] != id)
+            slot = (slot + 1) & mask;
+        return slot;
+    }
+
+    /**
+     * Rebuilds the table with a different capacity.
+     *
+     * @param capacity The new capacity. Must be a power of two.
+     */
+    private void rehash(int capacity) {
+        table = new int[capacity];
+        for (int index = 0; index < size; index++)
+            table[find(ids[index])] = index + 1;
+    }
+}